@@ -167,6 +167,8 @@ export function AssignmentDetail() {
   // Safe helpers for submission
   const submissionAnswers = existingSubmission?.answers ?? [];
   const gradeNumber = existingSubmission?.grade ?? undefined;
+  const correctCount = existingSubmission?.correctAnswers ?? submissionAnswers.filter((a) => a.isCorrect).length;
+  const totalCount = existingSubmission?.totalQuestions ?? submissionAnswers.length;
 
   // ===========================
   // RENDER
@@ -263,21 +265,21 @@ export function AssignmentDetail() {
                 <p className="text-sm text-muted-foreground mb-1">Điểm số</p>
                 <p className="text-2xl font-bold text-blue-600">
                   {/* gradeNumber có thể undefined -> hiển thị 0.0 */}
-                  {(gradeNumber ?? 0).toFixed(1)}/10
+                  {existingSubmission.grading ? "Đang chấm..." : `${(gradeNumber ?? 0).toFixed(1)}/10`}
                 </p>
               </div>
 
               <div className="p-4 bg-green-50 rounded-lg text-center">
                 <p className="text-sm text-muted-foreground mb-1">Đúng</p>
                 <p className="text-2xl font-bold text-green-600">
-                  {submissionAnswers.filter((a) => a.isCorrect).length}/{submissionAnswers.length}
+                  {correctCount}/{totalCount}
                 </p>
               </div>
 
               <div className="p-4 bg-red-50 rounded-lg text-center">
                 <p className="text-sm text-muted-foreground mb-1">Sai</p>
                 <p className="text-2xl font-bold text-red-600">
-                  {submissionAnswers.filter((a) => !a.isCorrect).length}/{submissionAnswers.length}
+                  {totalCount - correctCount}/{totalCount}
                 </p>
               </div>
             </div>
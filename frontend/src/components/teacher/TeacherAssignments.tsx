@@ -48,10 +48,14 @@ export function TeacherAssignments({ user }: TeacherAssignmentsProps) {
   // ===========================
   // API HOOKS
   // ===========================
-const { data: submissions, isLoading: isLoadingSubmissions } = useSubmissionsByAssignment(
+const [rosterPage, setRosterPage] = useState(0);
+const { data: roster, isLoading: isLoadingSubmissions } = useSubmissionsByAssignment(
   selectedAssignment || 0,
-  gradeDialogOpen
+  gradeDialogOpen,
+  rosterPage
 );
+const submissions = roster?.result;
+const rosterTotalPages = roster?.meta.totalPages || 0;
   const { data: assignmentDetail, isLoading: isLoadingDetail } = useAssignmentDetail(
     editingAssignmentId || 0,
     editingAssignmentId !== null
@@ -214,6 +218,7 @@ const { data: submissions, isLoading: isLoadingSubmissions } = useSubmissionsByA
 
   const handleViewSubmissions = (assignmentId: number) => {
     setSelectedAssignment(assignmentId);
+    setRosterPage(0);
     setGradeDialogOpen(true);
   };
 
@@ -465,6 +470,7 @@ const { data: submissions, isLoading: isLoadingSubmissions } = useSubmissionsByA
       <DialogTitle>Danh sách bài nộp</DialogTitle>
       <DialogDescription>
         Sinh viên đã nộp bài và điểm số
+        {roster ? ` (${roster.meta.totalElements} bài nộp)` : ''}
       </DialogDescription>
     </DialogHeader>
 
@@ -502,6 +508,24 @@ const { data: submissions, isLoading: isLoadingSubmissions } = useSubmissionsByA
           )}
         </TableBody>
       </Table>
+
+      {/* Pagination */}
+      {rosterTotalPages > 1 && (
+        <div className="flex items-center justify-between mt-4">
+          <div className="text-sm text-muted-foreground">Trang {rosterPage + 1} / {rosterTotalPages}</div>
+          <div className="flex gap-2">
+            <Button size="sm" variant="outline" disabled={rosterPage === 0}
+              onClick={() => setRosterPage(p => Math.max(0, p - 1))}>
+              Trước
+            </Button>
+
+            <Button size="sm" variant="outline" disabled={rosterPage >= rosterTotalPages - 1}
+              onClick={() => setRosterPage(p => Math.min(rosterTotalPages - 1, p + 1))}>
+              Sau
+            </Button>
+          </div>
+        </div>
+      )}
     </div>
   </DialogContent>
 </Dialog>
@@ -3,7 +3,7 @@ import { useQuery, useMutation, useQueryClient } from "@tanstack/react-query";
 import submissionService, {
   SubmitSubmissionDTO,
   ReponseDetailSubmissionDTO,
-  SubmissionListItemDTO,
+  SubmissionRosterPage,
   PaginatedResponse,
 } from "../lib/submissionService";
 import { toast } from "sonner";
@@ -69,6 +69,8 @@ export const useSubmissionByAssignment = (
     enabled: enabled && assignmentId > 0,
     staleTime: 1000 * 60 * 3,
     retry: false,
+    // Bài đang chờ chấm: hỏi lại cho tới khi có điểm
+    refetchInterval: (query) => (query.state.data?.grading ? 2000 : false),
   });
 };
 
@@ -91,11 +93,12 @@ export const useCheckSubmissionExists = (
 // 🆕 Lấy danh sách submissions của assignment (cho teacher)
 export const useSubmissionsByAssignment = (
   assignmentId: number,
-  enabled: boolean = true
+  enabled: boolean = true,
+  page: number = 0
 ) => {
-  return useQuery<SubmissionListItemDTO[], Error>({
-    queryKey: submissionKeys.listByAssignment(assignmentId),
-    queryFn: () => submissionService.getSubmissionsByAssignment(assignmentId),
+  return useQuery<SubmissionRosterPage, Error>({
+    queryKey: submissionKeys.listByAssignment(assignmentId, { page }),
+    queryFn: () => submissionService.getSubmissionsByAssignment(assignmentId, { page }),
     enabled: enabled && assignmentId > 0,
     staleTime: 1000 * 60 * 3,
   });
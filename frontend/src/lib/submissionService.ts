@@ -17,7 +17,10 @@ export interface ReponseDetailSubmissionDTO {
   submissionId: number | null;
   submittedAt: string | null;
   grade: number | undefined;
+  correctAnswers?: number | null; // Số câu đúng, lưu lúc chấm
+  totalQuestions?: number | null;
   submitted: boolean;
+  grading: boolean; // Đã nộp, đang chờ chấm
   answers: ResultAnswer[];
 }
 
@@ -33,6 +36,17 @@ export interface SubmissionListItemDTO {
   correctAnswers: number;
 }
 
+// Một trang danh sách bài nộp (ResultPaginationDTO của backend)
+export interface SubmissionRosterPage {
+  meta: {
+    currentPage: number;
+    pageSize: number;
+    totalPages: number;
+    totalElements: number;
+  };
+  result: SubmissionListItemDTO[];
+}
+
 export interface SubmitAnswerDTO {
   questionId: number;
   answer: string; // A/B/C/D
@@ -84,6 +98,7 @@ const submissionService = {
       ...data,
       grade: data.grade ?? undefined,
       submitted: Boolean(data.submitted),
+      grading: Boolean(data.grading),
       answers: data.answers ?? [],
     };
   },
@@ -101,6 +116,7 @@ const submissionService = {
       ...data,
       grade: data.grade ?? undefined,
       submitted: Boolean(data.submitted),
+      grading: Boolean(data.grading),
       answers: data.answers ?? [],
     };
   },
@@ -119,12 +135,25 @@ const submissionService = {
   // 🆕 Lấy danh sách submissions của assignment (cho teacher)
   // 🆕 Lấy danh sách submissions của assignment (cho teacher)
 getSubmissionsByAssignment: async (
-  assignmentId: number
-): Promise<SubmissionListItemDTO[]> => {
-  const response = await api.get<ApiResponse<SubmissionListItemDTO[]>>(
-    `/teacher/assignments/${assignmentId}/submissions`
+  assignmentId: number,
+  params?: { page?: number; size?: number; sort?: string }
+): Promise<SubmissionRosterPage> => {
+  // Backend trả về ResultPaginationDTO { meta, result }
+  const response = await api.get<ApiResponse<SubmissionRosterPage>>(
+    `/teacher/assignments/${assignmentId}/submissions`,
+    {
+      params: {
+        page: params?.page || 0,
+        size: params?.size || 50,
+        sort: params?.sort || "submittedAt,asc",
+      },
+    }
   );
-  return response.data.data;
+  const data = response.data.data;
+  return {
+    meta: data.meta,
+    result: data.result || [],
+  };
 },
 
 };
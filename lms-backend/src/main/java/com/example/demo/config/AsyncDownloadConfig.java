@@ -0,0 +1,88 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Async side of the MVC setup.
+ * <p>
+ * Downloads return a {@code FileDownload}, whose body {@link FileDownloadReturnValueHandler}
+ * writes with non-blocking I/O within {@code spring.mvc.async.request-timeout}; no thread is
+ * held per transfer.
+ * <p>
+ * The remaining MVC async work ({@code Callable}/{@code StreamingResponseBody} handlers) gets its
+ * own small executor instead of Boot's shared {@code applicationTaskExecutor} (8 threads,
+ * unbounded queue): {@code lms.mvc-async.threads} tasks run at once and up to
+ * {@code lms.mvc-async.queue-capacity} wait; beyond that the task is rejected and the client gets
+ * 503 with {@code Retry-After} (see {@code GlobalExceptionHandler}). It is deliberately not a
+ * bean, so Boot keeps creating its own task executor for everything else. Published as the
+ * {@code mvcAsync} executor metrics.
+ */
+@Configuration
+public class AsyncDownloadConfig implements WebMvcConfigurer, DisposableBean {
+    private final ThreadPoolTaskExecutor executor;
+
+    public AsyncDownloadConfig(MeterRegistry meterRegistry,
+                               @Value("${lms.mvc-async.threads:16}") int threads,
+                               @Value("${lms.mvc-async.queue-capacity:100}") int queueCapacity) {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        // luồng rảnh được thu hồi
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadNamePrefix("mvc-async-");
+        executor.setDaemon(true);
+        executor.initialize();
+        ExecutorServiceMetrics.monitor(meterRegistry, executor.getThreadPoolExecutor(), "mvcAsync", List.of());
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(executor);
+    }
+
+    /**
+     * Puts {@link FileDownloadReturnValueHandler} first. Handlers added through
+     * {@code addReturnValueHandlers} come after {@code RequestResponseBodyMethodProcessor}, which
+     * takes every return value of a {@code @RestController} and would serialize the
+     * {@code FileDownload} as JSON. Static, so the post-processor does not pull this configuration
+     * in early.
+     */
+    @Bean
+    static BeanPostProcessor fileDownloadReturnValueHandlerFirst(
+            @Value("${spring.mvc.async.request-timeout:30m}") Duration downloadTimeout) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof RequestMappingHandlerAdapter adapter) {
+                    List<HandlerMethodReturnValueHandler> handlers = new ArrayList<>();
+                    // CompletableFuture<FileDownload> cũng tới đây, ở lần async dispatch
+                    handlers.add(new FileDownloadReturnValueHandler(downloadTimeout));
+                    handlers.addAll(adapter.getReturnValueHandlers());
+                    adapter.setReturnValueHandlers(handlers);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
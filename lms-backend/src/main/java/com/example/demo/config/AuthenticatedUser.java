@@ -0,0 +1,24 @@
+package com.example.demo.config;
+
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collections;
+
+/**
+ * Principal of a username/password login. Keeps the user row read by {@link UserDetailsCustom}
+ * so the login request does not have to look it up again.
+ */
+public class AuthenticatedUser extends User {
+    private final com.example.demo.domain.User account;
+
+    public AuthenticatedUser(com.example.demo.domain.User account, String password) {
+        super(account.getEmail(), password,
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + account.getRole().name())));
+        this.account = account;
+    }
+
+    public com.example.demo.domain.User getAccount() {
+        return account;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.demo.config;
+
+import com.example.demo.service.FileDownload;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.MethodParameter;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import java.time.Duration;
+
+/**
+ * Writes a {@link FileDownload} (also the result of a {@code CompletableFuture<FileDownload>})
+ * to the response: status and headers right away, then the body through
+ * {@link NonBlockingBodyWriter} in a new async cycle of {@code timeout}, so the transfer runs on
+ * the container's and the S3 client's I/O threads instead of holding a request thread.
+ */
+public class FileDownloadReturnValueHandler implements HandlerMethodReturnValueHandler {
+    private final Duration timeout;
+
+    public FileDownloadReturnValueHandler(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    @Override
+    public boolean supportsReturnType(MethodParameter returnType) {
+        return FileDownload.class.isAssignableFrom(returnType.getParameterType());
+    }
+
+    @Override
+    public void handleReturnValue(Object returnValue, MethodParameter returnType, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest) throws Exception {
+        mavContainer.setRequestHandled(true);
+        if (returnValue == null) {
+            return;
+        }
+        FileDownload download = (FileDownload) returnValue;
+        HttpServletRequest request = webRequest.getNativeRequest(HttpServletRequest.class);
+        HttpServletResponse response = webRequest.getNativeResponse(HttpServletResponse.class);
+        response.setStatus(download.status().value());
+        download.headers().forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+        if (download.body() == null) {
+            return;
+        }
+
+        AsyncContext asyncContext;
+        try {
+            // không truyền request/response: ghi thẳng vào response của container, không qua wrapper của MVC
+            asyncContext = request.startAsync();
+        } catch (RuntimeException e) {
+            NonBlockingBodyWriter.discard(download.body());
+            throw e;
+        }
+        asyncContext.setTimeout(timeout.toMillis());
+        new NonBlockingBodyWriter(asyncContext, download.body()).start();
+    }
+}
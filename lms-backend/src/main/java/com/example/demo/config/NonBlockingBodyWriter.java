@@ -0,0 +1,253 @@
+package com.example.demo.config;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Copies a publisher of buffers to an async response with non-blocking writes. One buffer is
+ * requested at a time, and the next only once the container took the previous one
+ * ({@link ServletOutputStream#isReady()}), so a slow client holds neither a thread nor more than
+ * one buffer. The body is subscribed on the first {@link #onWritePossible()}, i.e. after the
+ * dispatch that set the status and headers has returned.
+ * <p>
+ * A client that goes away, an upstream error or the async timeout cancel the subscription,
+ * which releases the S3 connection (or closes the cached file).
+ */
+@Slf4j
+final class NonBlockingBodyWriter implements Subscriber<ByteBuffer>, WriteListener, AsyncListener {
+    private static final int SCRATCH_SIZE = 64 * 1024;
+
+    private final AsyncContext asyncContext;
+    private final Publisher<ByteBuffer> body;
+
+    private ServletOutputStream out;
+    private byte[] scratch;
+    private Subscription subscription;
+    private ByteBuffer pending;
+    private boolean subscribed;
+    private boolean upstreamDone;
+    private boolean finished;
+
+    NonBlockingBodyWriter(AsyncContext asyncContext, Publisher<ByteBuffer> body) {
+        this.asyncContext = asyncContext;
+        this.body = body;
+    }
+
+    void start() {
+        asyncContext.addListener(this);
+        try {
+            out = asyncContext.getResponse().getOutputStream();
+            out.setWriteListener(this);
+        } catch (IOException | RuntimeException e) {
+            abort(e);
+        }
+    }
+
+    /**
+     * Subscribes and cancels at once, for a body that will never be written.
+     */
+    static void discard(Publisher<ByteBuffer> body) {
+        body.subscribe(new Subscriber<>() {
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                subscription.cancel();
+            }
+
+            @Override
+            public void onNext(ByteBuffer buffer) {
+            }
+
+            @Override
+            public void onError(Throwable error) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+    }
+
+    // ---- WriteListener ----
+
+    @Override
+    public void onWritePossible() {
+        boolean subscribe;
+        synchronized (this) {
+            if (finished) {
+                return;
+            }
+            subscribe = !subscribed;
+            subscribed = true;
+        }
+        if (subscribe) {
+            body.subscribe(this);
+        } else {
+            drain();
+        }
+    }
+
+    // ---- Subscriber ----
+
+    @Override
+    public void onSubscribe(Subscription s) {
+        synchronized (this) {
+            if (finished) {
+                s.cancel();
+                return;
+            }
+            subscription = s;
+        }
+        s.request(1);
+    }
+
+    @Override
+    public void onNext(ByteBuffer buffer) {
+        synchronized (this) {
+            pending = buffer;
+        }
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        synchronized (this) {
+            upstreamDone = true;
+        }
+        drain();
+    }
+
+    /**
+     * Both {@link Subscriber#onError} (reading from S3 or the file failed) and
+     * {@link WriteListener#onError} (the client went away). The headers are out, so the status
+     * cannot change; the response is ended short of its Content-Length.
+     */
+    @Override
+    public void onError(Throwable error) {
+        abort(error);
+    }
+
+    // ---- AsyncListener ----
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+        synchronized (this) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+        }
+        cancelUpstream();
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+        log.warn("Download timed out before the client read the whole body");
+        abort(event.getThrowable());
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+        abort(event.getThrowable());
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+    }
+
+    private void drain() {
+        boolean requestMore = false;
+        synchronized (this) {
+            if (finished) {
+                return;
+            }
+            try {
+                while (pending != null) {
+                    if (!out.isReady()) {
+                        // container gọi lại onWritePossible() khi ghi tiếp được
+                        return;
+                    }
+                    write(pending);
+                    if (!pending.hasRemaining()) {
+                        pending = null;
+                        requestMore = !upstreamDone;
+                    }
+                }
+                if (upstreamDone) {
+                    finished = true;
+                    asyncContext.complete();
+                    return;
+                }
+            } catch (IOException | RuntimeException e) {
+                abort(e);
+                return;
+            }
+        }
+        // ngoài lock: publisher có thể gọi onNext() ngay trên luồng này
+        if (requestMore) {
+            subscription.request(1);
+        }
+    }
+
+    /**
+     * Heap buffers are written whole; direct or mapped ones are copied through {@link #scratch} a
+     * piece at a time, the rest staying pending until the stream is ready again.
+     */
+    private void write(ByteBuffer buffer) throws IOException {
+        if (buffer.hasArray()) {
+            out.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            buffer.position(buffer.limit());
+            return;
+        }
+        if (scratch == null) {
+            scratch = new byte[SCRATCH_SIZE];
+        }
+        int length = Math.min(scratch.length, buffer.remaining());
+        buffer.get(scratch, 0, length);
+        // container chép dữ liệu vào buffer của nó, scratch dùng lại được ngay
+        out.write(scratch, 0, length);
+    }
+
+    private void abort(Throwable error) {
+        synchronized (this) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            pending = null;
+        }
+        if (error != null) {
+            log.debug("Download body not fully written: {}", error.toString());
+        }
+        cancelUpstream();
+        try {
+            asyncContext.complete();
+        } catch (IllegalStateException ignored) {
+            // async cycle đã kết thúc
+        }
+    }
+
+    private void cancelUpstream() {
+        Subscription s;
+        boolean wasSubscribed;
+        synchronized (this) {
+            s = subscription;
+            wasSubscribed = subscribed;
+            subscribed = true;
+        }
+        if (s != null) {
+            s.cancel();
+        } else if (!wasSubscribed) {
+            discard(body);
+        }
+    }
+}
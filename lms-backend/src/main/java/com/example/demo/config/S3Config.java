@@ -6,8 +6,11 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.beans.factory.annotation.Value;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 
 @Configuration
 public class S3Config {
@@ -21,6 +24,10 @@ public class S3Config {
     @Value("${aws.region}")
     private String region;
 
+    // Số kết nối tối đa của client async (các request vượt quá sẽ chờ trong hàng đợi của SDK)
+    @Value("${aws.s3.async-max-concurrency:200}")
+    private int asyncMaxConcurrency;
+
     @Bean
     public S3Client s3Client() {
         return S3Client.builder()
@@ -32,5 +39,36 @@ public class S3Config {
                 )
                 .build();
     }
+
+    /**
+     * Non-blocking client on Netty: requests wait for S3 without holding a thread.
+     */
+    @Bean
+    public S3AsyncClient s3AsyncClient() {
+        return S3AsyncClient.builder()
+                .region(Region.of(region))
+                .credentialsProvider(
+                        StaticCredentialsProvider.create(
+                                AwsBasicCredentials.create(accessKey, secretKey)
+                        )
+                )
+                .httpClientBuilder(
+                        NettyNioAsyncHttpClient.builder()
+                                .maxConcurrency(asyncMaxConcurrency)
+                )
+                .build();
+    }
+
+    @Bean
+    public S3Presigner s3Presigner() {
+        return S3Presigner.builder()
+                .region(Region.of(region))
+                .credentialsProvider(
+                        StaticCredentialsProvider.create(
+                                AwsBasicCredentials.create(accessKey, secretKey)
+                        )
+                )
+                .build();
+    }
 }
 
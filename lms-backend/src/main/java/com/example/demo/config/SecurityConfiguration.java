@@ -3,6 +3,7 @@ package com.example.demo.config;
 import com.example.demo.util.SecurityUtil;
 import com.nimbusds.jose.jwk.source.ImmutableSecret;
 import com.nimbusds.jose.util.Base64;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -12,6 +13,7 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtEncoder;
@@ -23,18 +25,49 @@ import org.springframework.security.web.SecurityFilterChain;
 
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
+import java.time.Duration;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Slf4j
 @Configuration
 @EnableMethodSecurity(securedEnabled = true)
 public class SecurityConfiguration {
 
+    private static final Pattern LEGACY_BCRYPT = Pattern.compile("^\\$2[aby]\\$(\\d\\d)\\$[./0-9A-Za-z]{53}$");
+
     @Value("${tuan.jwt.base64-secret}")
     private String jwtKey;
 
+    /**
+     * New hashes are {@code {bcrypt}} at {@code lms.security.bcrypt-strength}; legacy hashes
+     * without an id prefix are still matched as BCrypt. A hash is rehashed on the next successful
+     * login (see {@link UserDetailsCustom#updatePassword}) only when its cost is below that
+     * strength, so an unprefixed hash that is already strong enough is left as it is.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry,
+                                           @Value("${lms.security.bcrypt-strength:10}") int bcryptStrength,
+                                           @Value("${lms.security.password-hashing.threads:0}") int hashingThreads,
+                                           @Value("${lms.security.password-hashing.queue-capacity:200}") int queueCapacity,
+                                           @Value("${lms.security.password-hashing.max-wait:5s}") Duration maxWait) {
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder("bcrypt",
+                Map.of("bcrypt", new BCryptPasswordEncoder(bcryptStrength))) {
+            @Override
+            public boolean upgradeEncoding(String prefixEncodedPassword) {
+                // hash cũ không có prefix: chỉ băm lại khi cost thấp hơn cấu hình
+                Matcher legacy = prefixEncodedPassword == null ? null : LEGACY_BCRYPT.matcher(prefixEncodedPassword);
+                if (legacy != null && legacy.matches()) {
+                    return Integer.parseInt(legacy.group(1)) < bcryptStrength;
+                }
+                return super.upgradeEncoding(prefixEncodedPassword);
+            }
+        };
+        encoder.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder());
+        // 0 = một nửa số core, để login dồn dập không chiếm hết CPU của các API khác
+        int threads = hashingThreads > 0 ? hashingThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new OffloadedPasswordEncoder(encoder, threads, queueCapacity, maxWait, meterRegistry);
     }
 
     @Bean
@@ -82,17 +115,19 @@ public class SecurityConfiguration {
     }
 
     @Bean
-    public JwtDecoder jwtDecoder() {
+    public JwtDecoder jwtDecoder(MeterRegistry meterRegistry,
+                                 @Value("${lms.security.jwt-cache-size:10000}") long jwtCacheSize) {
         NimbusJwtDecoder jwtDecoder = NimbusJwtDecoder.withSecretKey(
                 getSecretKey()).macAlgorithm(SecurityUtil.JWT_ALOGORITHM).build();
-        return token -> {
+        // token đã xác thực được nhớ đến khi hết hạn, request sau không phải verify + parse lại
+        return new CachingJwtDecoder(token -> {
             try {
                 return jwtDecoder.decode(token);
             } catch (Exception e) {
                 log.warn("JWT decode failed: {}", e.getMessage());
                 throw e;
             }
-        };
+        }, jwtCacheSize, meterRegistry);
     }
 
     public JwtAuthenticationConverter jwtAuthenticationConverter() {
@@ -1,17 +1,15 @@
 package com.example.demo.config;
 
 import com.example.demo.service.AuthService;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Component;
 
-import java.util.Collections;
-
 @Component("userDetailsCustom")
-public class UserDetailsCustom implements UserDetailsService {
+public class UserDetailsCustom implements UserDetailsService, UserDetailsPasswordService {
     private final AuthService authService;
     public UserDetailsCustom(AuthService authService) {
         this.authService = authService;
@@ -24,11 +22,19 @@ public class UserDetailsCustom implements UserDetailsService {
         if (user==null)
             throw new UsernameNotFoundException(username);
 
-        User us= new User(
-                user.getEmail(),
-                user.getPassword(),
-                Collections.singletonList(new SimpleGrantedAuthority("ROLE_"+user.getRole().name()))
-        );
-        return us;
+        return new AuthenticatedUser(user, user.getPassword());
+    }
+
+    /**
+     * Called after a successful login whose stored hash uses an outdated format or cost;
+     * {@code newPassword} is already encoded with the current settings.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        authService.updatePasswordHash(user.getUsername(), newPassword);
+        if (user instanceof AuthenticatedUser authenticatedUser) {
+            return new AuthenticatedUser(authenticatedUser.getAccount(), newPassword);
+        }
+        return User.withUserDetails(user).password(newPassword).build();
     }
 }
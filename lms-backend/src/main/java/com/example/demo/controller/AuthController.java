@@ -1,8 +1,10 @@
 package com.example.demo.controller;
 
+import com.example.demo.config.AuthenticatedUser;
 import com.example.demo.domain.User;
 import com.example.demo.dto.response.userDTO.ResUserDTO;
 import com.example.demo.service.AuthService;
+import com.example.demo.service.RefreshTokenService;
 // import com.example.demo.service.UserService;
 import com.example.demo.dto.request.auth.RegisterRequestDTO;
 import com.example.demo.dto.request.auth.RequestLoginDTO;
@@ -25,6 +27,7 @@ import org.springframework.security.config.annotation.authentication.builders.Au
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtException;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -36,6 +39,7 @@ public class AuthController {
     private final AuthenticationManagerBuilder authenticationManagerBuilder;
     private final AuthService authService;
     private final SecurityUtil securityUtil;
+    private final RefreshTokenService refreshTokenService;
     @PostMapping("/login")
     @Operation(summary = "Login", description = "")
     public ResponseEntity<ApiResponse<ResLoginDTO>> login(@Valid @RequestBody RequestLoginDTO requestLoginDTO){
@@ -47,7 +51,8 @@ public class AuthController {
         Authentication authentication = authenticationManagerBuilder.getObject().authenticate(authenticationToken);
 
         //set thông tin người dùng đăng phập vào context
-        User user=authService.getUserByEmail(requestLoginDTO.getEmail());
+        //user đã được đọc khi xác thực, không query lại
+        User user=((AuthenticatedUser) authentication.getPrincipal()).getAccount();
         if (user.isLocked()){
             throw new CustomException("Tài khoản đã bị khóa");
         }
@@ -66,9 +71,7 @@ public class AuthController {
         resLoginDTO.setName(user.getName());
         resLoginDTO.setUserId(user.getUserId());
         //create refresh token
-        String new_refresh_token=securityUtil.createRefreshToken(requestLoginDTO.getEmail(),resLoginDTO);
-        //update user
-        authService.updateUserToken(new_refresh_token,user.getEmail());
+        String new_refresh_token=refreshTokenService.issue(user,resLoginDTO);
 
         //set cookie
         ResponseCookie responseCookie=ResponseCookie
@@ -104,28 +107,23 @@ public class AuthController {
         }
         //checkValid Token
         Jwt decodedToken = securityUtil.checkValidRefreshToken(refreshToken);
-        //check user by email+refreshtoken
 
         String email=decodedToken.getSubject();
-        User currentUser=authService.getUserByEmailAndRefreshToken(email,refreshToken);
-        if (currentUser==null){
-            throw new RuntimeException("Refresh token invalid");
+        User user=authService.getUserByEmail(email);
+        if (user==null || user.isLocked()){
+            throw new CustomException("Refresh token invalid");
         }
-        //issue new refresh token
         //create a token
         ResLoginDTO resLoginDTO=new ResLoginDTO();
 
-        User user=authService.getUserByEmail(email);
         resLoginDTO.setUser(resLoginDTO.new UserLogin(user.getUserId(), user.getEmail(), user.getName(), user.getRole()));
         resLoginDTO.setRole(user.getRole());
         //create acess token
         String access_token=securityUtil.createAccessToken(email,resLoginDTO);
         resLoginDTO.setToken(access_token);
 
-        //create refreshtoken
-        String new_refresh_token=securityUtil.createRefreshToken(email,resLoginDTO);
-        //update user
-        authService.updateUserToken(new_refresh_token,user.getEmail());
+        //đổi refresh token cũ lấy token mới (dùng được một lần)
+        String new_refresh_token=refreshTokenService.rotate(decodedToken.getId(),email,resLoginDTO);
 
         //set cookie
         ResponseCookie responseCookie=ResponseCookie
@@ -143,15 +141,23 @@ public class AuthController {
     @PostMapping("/logout")
     @SecurityRequirement(name = "BearerAuth")
     @Operation(summary = "Logout", description = "")
-    public ResponseEntity<ApiResponse<Void>> logout(){
+    public ResponseEntity<ApiResponse<Void>> logout(
+            @CookieValue(name = "refresh_Token", required = false) String refreshToken
+    ){
         String email=SecurityUtil.getCurrentUserLogin().isPresent()?  SecurityUtil.getCurrentUserLogin().get():"";
 
         if (email.equals("")){
             throw new CustomException("Access token invalid");
         }
 
-        //update refresh token = null
-        this.authService.updateUserToken(null,email);
+        //thu hồi refresh token của thiết bị này
+        if (refreshToken != null && !refreshToken.isEmpty()){
+            try {
+                refreshTokenService.revoke(securityUtil.checkValidRefreshToken(refreshToken).getId());
+            } catch (JwtException e) {
+                // token hỏng hoặc hết hạn: không còn gì để thu hồi
+            }
+        }
         //remove refreshtoken
         ResponseCookie deleteCookie=ResponseCookie
                 .from("refresh_Token", null)
@@ -1,12 +1,18 @@
 package com.example.demo.controller;
 
 import com.example.demo.domain.Document;
+import com.example.demo.dto.request.document.FinalizeDocumentUploadDTO;
+import com.example.demo.dto.request.document.PresignDocumentUploadDTO;
 import com.example.demo.dto.response.ApiResponse;
+import com.example.demo.dto.response.documentDTO.ResponsePresignedUploadDTO;
 import com.example.demo.service.DocumentService;
+import com.example.demo.service.FileDownload;
 import com.example.demo.util.SecurityUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -14,7 +20,10 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.net.URISyntaxException;
+import java.net.URL;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequiredArgsConstructor
@@ -40,15 +49,69 @@ public class DocumentController {
     @GetMapping(value = "/courses/{courseid}/documents/{documentid}/download")
     @PreAuthorize("hasAnyRole('TEACHER','STUDENT')")
     @SecurityRequirement(name = "BearerAuth")
-    @Operation(summary = "DownloadDocument", description = "")
-    public ResponseEntity<byte[]>  downloadDocument(
+    @Operation(summary = "DownloadDocument", description = "Supports Range/If-Range (206) and If-None-Match/If-Modified-Since (304)")
+    public CompletableFuture<FileDownload> downloadDocument(
             @RequestParam Long documentid,
-            @RequestParam Long courseid
+            @RequestParam Long courseid,
+            @RequestHeader HttpHeaders headers
     ) {
         String user = securityUtil.getCurrentUserLogin()
                 .orElseThrow(()-> new RuntimeException("User not found"));
-        ResponseEntity<byte[]>  document=documentService.downloadFile(documentid, user);
-        return document;
+        return documentService.downloadFile(documentid, user, headers);
+    }
+    @GetMapping("/courses/{courseid}/documents/{documentid}/preview")
+    @PreAuthorize("hasAnyRole('TEACHER','STUDENT')")
+    @SecurityRequirement(name = "BearerAuth")
+    @Operation(summary = "Preview image of a document", description = "Small JPEG of an image or of the first page of a PDF; 404 when hasPreview is false")
+    public CompletableFuture<FileDownload> previewDocument(
+            @PathVariable Long documentid,
+            @PathVariable Long courseid,
+            @RequestHeader HttpHeaders headers
+    ) {
+        String user = securityUtil.getCurrentUserLogin()
+                .orElseThrow(()-> new RuntimeException("User not found"));
+        return documentService.downloadPreview(documentid, user, headers);
+    }
+    @PostMapping("/courses/{courseid}/documents/presign-upload")
+    @PreAuthorize("hasRole('TEACHER')")
+    @SecurityRequirement(name = "BearerAuth")
+    @Operation(summary = "Get a presigned URL to upload a document directly to S3", description = "Then PUT the file to uploadUrl with the returned headers and call finalize")
+    public ResponseEntity<ApiResponse<ResponsePresignedUploadDTO>> presignUpload(
+            @PathVariable Long courseid,
+            @RequestBody @Valid PresignDocumentUploadDTO dto
+    ) {
+        String user = securityUtil.getCurrentUserLogin()
+                .orElseThrow(()-> new RuntimeException("User not found"));
+        ResponsePresignedUploadDTO presigned=documentService.presignUpload(courseid, user, dto);
+        ApiResponse<ResponsePresignedUploadDTO> response=new ApiResponse<>(HttpStatus.OK,"Presigned upload created",presigned,null);
+        return ResponseEntity.ok().body(response);
+    }
+    @PostMapping("/courses/{courseid}/documents/finalize")
+    @PreAuthorize("hasRole('TEACHER')")
+    @SecurityRequirement(name = "BearerAuth")
+    @Operation(summary = "Record a document uploaded with a presigned URL", description = "")
+    public ResponseEntity<ApiResponse<Document>> finalizeUpload(
+            @PathVariable Long courseid,
+            @RequestBody @Valid FinalizeDocumentUploadDTO dto
+    ) {
+        String user = securityUtil.getCurrentUserLogin()
+                .orElseThrow(()-> new RuntimeException("User not found"));
+        Document document=documentService.finalizeUpload(courseid, user, dto);
+        ApiResponse<Document> response=new ApiResponse<>(HttpStatus.CREATED,"Document uploaded successfully",document,null);
+        return ResponseEntity.ok().body(response);
+    }
+    @GetMapping("/courses/{courseid}/documents/{documentid}/download-url")
+    @PreAuthorize("hasAnyRole('TEACHER','STUDENT')")
+    @SecurityRequirement(name = "BearerAuth")
+    @Operation(summary = "Redirect to a short-lived presigned S3 download URL", description = "")
+    public ResponseEntity<Void> downloadDocumentRedirect(
+            @PathVariable Long documentid,
+            @PathVariable Long courseid
+    ) throws URISyntaxException {
+        String user = securityUtil.getCurrentUserLogin()
+                .orElseThrow(()-> new RuntimeException("User not found"));
+        URL url=documentService.getDownloadUrl(documentid, user);
+        return ResponseEntity.status(HttpStatus.FOUND).location(url.toURI()).build();
     }
     @GetMapping("/courses/{courseid}/documents")
     @PreAuthorize("hasAnyRole('TEACHER','STUDENT')")
@@ -1,36 +1,29 @@
 package com.example.demo.controller;
 
+import com.example.demo.service.FileDownload;
+import com.example.demo.service.UploadFileService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
-import software.amazon.awssdk.core.ResponseBytes;
-import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
-
-import software.amazon.awssdk.services.s3.model.GetObjectRequest;
-import software.amazon.awssdk.services.s3.model.GetObjectResponse;
-import software.amazon.awssdk.services.s3.model.PutObjectRequest;
-import software.amazon.awssdk.core.sync.RequestBody;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/file")
 public class FileController {
 
-    private final S3Client s3Client;
+    private final UploadFileService uploadFileService;
 
-    @Value("${aws.s3.bucket}")
-    private String bucketName;
-
-    public FileController(S3Client s3Client) {
-        this.s3Client = s3Client;
+    public FileController(UploadFileService uploadFileService) {
+        this.uploadFileService = uploadFileService;
     }
 
     @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -42,13 +35,7 @@ public class FileController {
             @RequestParam("folder") String folder
     ) throws IOException {
         String key = folder + "/" + file.getOriginalFilename();
-        s3Client.putObject(
-                PutObjectRequest.builder()
-                        .bucket(bucketName)
-                        .key(key)
-                        .build(),
-                RequestBody.fromBytes(file.getBytes())
-        );
+        uploadFileService.putObject(key, file);
         return "Uploaded: " + key;
     }
 
@@ -56,49 +43,23 @@ public class FileController {
     @PreAuthorize("hasAnyRole('TEACHER', 'ADMIN', 'STUDENT')")
     @SecurityRequirement(name = "BearerAuth")
     @Operation(summary = "Download file từ S3")
-    public ResponseEntity<byte[]> downloadFile(
+    public CompletableFuture<FileDownload> downloadFile(
             @PathVariable String folder,
-            @PathVariable String filename
+            @PathVariable String filename,
+            @RequestHeader HttpHeaders headers
     ) {
-        String key = folder + "/" + filename;
-        try {
-            ResponseBytes<GetObjectResponse> objectBytes = s3Client.getObjectAsBytes(
-                    GetObjectRequest.builder()
-                            .bucket(bucketName)
-                            .key(key)
-                            .build()
-            );
-            return ResponseEntity.ok()
-                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                    .header("Content-Disposition", "attachment; filename=\"" + filename + "\"")
-                    .body(objectBytes.asByteArray());
-        } catch (Exception e) {
-            return ResponseEntity.status(404).body(null);
-        }
+        // Không có ETag đã lưu: chỉ hỗ trợ Range
+        return uploadFileService.downloadFile(folder, filename, headers, null, null);
     }
 
     @DeleteMapping("/delete/{folder}/{filename}")
     @PreAuthorize("hasAnyRole('TEACHER', 'ADMIN')")
     @SecurityRequirement(name = "BearerAuth")
     @Operation(summary = "Xóa file trên S3")
-    public ResponseEntity<String> deleteFile(
+    public CompletableFuture<ResponseEntity<String>> deleteFile(
             @PathVariable String folder,
             @PathVariable String filename
     ) {
-        String key = folder + "/" + filename;
-        try {
-            s3Client.headObject(builder -> builder.bucket(bucketName).key(key));
-            s3Client.deleteObject(
-                    DeleteObjectRequest.builder()
-                            .bucket(bucketName)
-                            .key(key)
-                            .build()
-            );
-            return ResponseEntity.ok("Deleted: " + key);
-        } catch (software.amazon.awssdk.services.s3.model.NoSuchKeyException e) {
-            return ResponseEntity.status(404).body("File not found: " + key);
-        } catch (Exception e) {
-            return ResponseEntity.status(500).body("Error deleting file: " + e.getMessage());
-        }
+        return uploadFileService.deleteFile(folder, filename);
     }
 }
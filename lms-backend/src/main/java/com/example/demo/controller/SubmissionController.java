@@ -2,21 +2,24 @@ package com.example.demo.controller;
 
 import com.example.demo.dto.request.submission.SubmitSubmissionDTO;
 import com.example.demo.dto.response.ApiResponse;
+import com.example.demo.dto.response.ResultPaginationDTO;
 import com.example.demo.dto.response.submissionDTO.ResponseDetailSubmissionDTO;
-import com.example.demo.dto.response.submissionDTO.SubmissionListItemDTO;
 import com.example.demo.service.AssignmentService;
 import com.example.demo.service.SubmissionService;
+import com.example.demo.util.CurrentUser;
 import com.example.demo.util.SecurityUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
-import java.util.List;
 
 @RestController
 @RequiredArgsConstructor
@@ -35,19 +38,30 @@ public class SubmissionController {
     @SecurityRequirement(name = "BearerAuth")
     @Operation(
             summary = "Submit assignment",
-            description = "Submit student's answers for an assignment"
+            description = "Submit student's answers for an assignment. Returns 202 and the submission id when async grading is enabled"
     )
-    public ResponseEntity<ApiResponse<Void>> submitSubmission(@RequestBody @Valid SubmitSubmissionDTO dto) {
+    public ResponseEntity<ApiResponse<Long>> submitSubmission(@RequestBody @Valid SubmitSubmissionDTO dto) {
 
         String user = securityUtil.getCurrentUserLogin()
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        submissionService.submitSubmission(dto, user);
+        Long submissionId = submissionService.submitSubmission(dto, user);
 
-        ApiResponse<Void> response = new ApiResponse<>(
+        if (submissionService.isAsyncIntake()) {
+            // Bài nộp đã được ghi nhận, kết quả có sau khi worker chấm xong
+            ApiResponse<Long> response = new ApiResponse<>(
+                    HttpStatus.ACCEPTED,
+                    "Submission received, grading in progress",
+                    submissionId,
+                    null
+            );
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        }
+
+        ApiResponse<Long> response = new ApiResponse<>(
                 HttpStatus.CREATED,
                 "Submit submission successfully",
-                null,
+                submissionId,
                 null
         );
         return ResponseEntity.ok().body(response);
@@ -67,7 +81,7 @@ public class SubmissionController {
             @PathVariable Long submissionId
     ) {
 
-        String user = securityUtil.getCurrentUserLogin()
+        CurrentUser user = securityUtil.getCurrentUser()
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         ResponseDetailSubmissionDTO result =
@@ -96,7 +110,7 @@ public class SubmissionController {
             @PathVariable Long assignmentId
     ) {
 
-        String user = securityUtil.getCurrentUserLogin()
+        CurrentUser user = securityUtil.getCurrentUser()
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         ResponseDetailSubmissionDTO result =
@@ -111,18 +125,25 @@ public class SubmissionController {
         return ResponseEntity.ok().body(response);
     }
     @GetMapping("/teacher/assignments/{assignmentId}/submissions")
-@PreAuthorize("hasRole('TEACHER')")
-public ResponseEntity<ApiResponse<List<SubmissionListItemDTO>>> getSubmissionsByAssignment(
-        @PathVariable Long assignmentId) {
-
-    List<SubmissionListItemDTO> result = submissionService.getSubmissionsByAssignment(assignmentId);
-
-    ApiResponse<List<SubmissionListItemDTO>> response = new ApiResponse<>(
-            HttpStatus.OK,
-            "Fetched submissions successfully",
-            result,
-            null
-    );
-    return ResponseEntity.ok(response);
-}
+    @PreAuthorize("hasRole('TEACHER')")
+    @SecurityRequirement(name = "BearerAuth")
+    @Operation(
+            summary = "Get submissions of an assignment",
+            description = "Paged roster with grade and correct/total answers; sort by grade or submittedAt"
+    )
+    public ResponseEntity<ApiResponse<ResultPaginationDTO>> getSubmissionsByAssignment(
+            @PathVariable Long assignmentId,
+            @PageableDefault(size = 20, page = 0, sort = "submittedAt", direction = Sort.Direction.ASC) Pageable pageable
+    ) {
+
+        ResultPaginationDTO result = submissionService.getSubmissionsByAssignment(assignmentId, pageable);
+
+        ApiResponse<ResultPaginationDTO> response = new ApiResponse<>(
+                HttpStatus.OK,
+                "Fetched submissions successfully",
+                result,
+                null
+        );
+        return ResponseEntity.ok(response);
+    }
 }
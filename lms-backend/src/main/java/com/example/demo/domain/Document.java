@@ -1,6 +1,7 @@
 package com.example.demo.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Getter;
@@ -45,12 +46,26 @@ public class Document {
     @Column(name = "fileSize")
     private Long fileSize;
 
+    // ETag của object trên S3, dùng cho If-None-Match / If-Range khi tải xuống
+    @Column(name = "etag", length = 100)
+    private String etag;
+
+    // Ảnh xem trước (JPEG nhỏ) trên S3, null nếu chưa có hoặc loại file không hỗ trợ
+    @JsonIgnore
+    @Column(name = "previewKey", length = 300)
+    private String previewKey;
+
     @Column(name = "createdAt", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
     @Column(name = "updatedAt")
     private LocalDateTime updatedAt;
 
+    @JsonProperty("hasPreview")
+    public boolean hasPreview() {
+        return previewKey != null;
+    }
+
     @PrePersist
     protected void onCreate() {
         if (createdAt == null) {
@@ -0,0 +1,53 @@
+package com.example.demo.domain;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outbox row of an S3 object to delete. Written in the same transaction as the database delete
+ * that orphans the object and removed by {@code ObjectDeletionWorker} once S3 confirms.
+ */
+@Entity
+@Table(name = "PendingObjectDeletion", indexes = @Index(name = "idx_pending_object_deletion_next", columnList = "nextAttemptAt"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class PendingObjectDeletion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "objectKey", nullable = false, length = 1024)
+    private String objectKey;
+
+    @Column(name = "createdAt", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "nextAttemptAt", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "lastError", length = 500)
+    private String lastError;
+
+    public PendingObjectDeletion(String objectKey) {
+        this.objectKey = objectKey;
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+        if (nextAttemptAt == null) {
+            nextAttemptAt = createdAt;
+        }
+    }
+}
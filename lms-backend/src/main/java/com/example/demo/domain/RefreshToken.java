@@ -0,0 +1,46 @@
+package com.example.demo.domain;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * One live refresh token (one per logged-in device). Only the SHA-256 of the token's
+ * {@code jti} claim is stored; rotating replaces it in place.
+ */
+@Entity
+@Table(name = "RefreshToken", indexes = {
+        @Index(name = "idx_refresh_token_user", columnList = "userId"),
+        @Index(name = "idx_refresh_token_expires", columnList = "expiresAt")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class RefreshToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "userId", nullable = false, length = 36)
+    private String userId;
+
+    @Column(name = "tokenHash", nullable = false, unique = true, length = 64)
+    private String tokenHash;
+
+    @Column(name = "expiresAt", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "createdAt", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.demo.domain;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Content-addressed S3 object shared by every {@link Document} with the same bytes. The key is
+ * derived from the SHA-256 of the content; {@code refCount} is the number of documents pointing
+ * at it. A row at zero is left for {@code ObjectDeletionService}, which removes it together with
+ * the object unless a new upload took a reference in the meantime.
+ */
+@Entity
+@Table(name = "StoredObject")
+@Getter
+@Setter
+@NoArgsConstructor
+public class StoredObject {
+
+    @Id
+    @Column(name = "objectKey", length = 200)
+    private String objectKey;
+
+    @Column(name = "sha256", nullable = false, length = 64)
+    private String sha256;
+
+    @Column(name = "size", nullable = false)
+    private Long size;
+
+    @Column(name = "contentType", length = 100)
+    private String contentType;
+
+    @Column(name = "etag", length = 100)
+    private String etag;
+
+    @Column(name = "refCount", nullable = false)
+    private int refCount;
+
+    @Column(name = "createdAt", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
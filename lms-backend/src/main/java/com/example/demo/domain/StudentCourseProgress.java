@@ -0,0 +1,93 @@
+package com.example.demo.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Read model of one student's progress in one course, kept current by the submission,
+ * assignment and enrollment writes so reports can be answered with a primary-key lookup.
+ */
+@Entity
+@Table(name = "StudentCourseProgress")
+@IdClass(StudentCourseProgress.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+public class StudentCourseProgress implements Persistable<StudentCourseProgress.Key> {
+
+    @Id
+    @Column(name = "studentId", length = 36)
+    private String studentId;
+
+    @Id
+    @Column(name = "courseId")
+    private Long courseId;
+
+    @Column(name = "assignmentCount", nullable = false)
+    private int assignmentCount;
+
+    @Column(name = "submittedCount", nullable = false)
+    private int submittedCount;
+
+    @Column(name = "gradedCount", nullable = false)
+    private int gradedCount;
+
+    @Column(name = "gradedSum", nullable = false)
+    private double gradedSum;
+
+    @Column(name = "updatedAt")
+    private LocalDateTime updatedAt;
+
+    // ids are assigned, so tell Spring Data when to persist instead of merge (which would SELECT first)
+    @Transient
+    private boolean isNew = true;
+
+    public StudentCourseProgress(String studentId, Long courseId) {
+        this.studentId = studentId;
+        this.courseId = courseId;
+    }
+
+    public Double getAverageGrade() {
+        return gradedCount == 0 ? null : gradedSum / gradedCount;
+    }
+
+    @Override
+    public Key getId() {
+        return new Key(studentId, courseId);
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PrePersist
+    @PreUpdate
+    protected void onWrite() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PostLoad
+    @PostPersist
+    protected void markNotNew() {
+        isNew = false;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private String studentId;
+        private Long courseId;
+    }
+}
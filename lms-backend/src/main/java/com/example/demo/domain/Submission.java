@@ -29,6 +29,14 @@ public class Submission {
     private LocalDateTime submittedAt;
     @Column(name = "grade")
     private Double grade;
+    // Số câu đúng / tổng số câu, lưu lúc chấm (null với bài chưa chấm hoặc chưa backfill)
+    @Column(name = "correctCount")
+    private Integer correctCount;
+    @Column(name = "questionCount")
+    private Integer questionCount;
+    // Bài nộp qua hàng đợi đã hết số lần chấm mà vẫn lỗi (không còn được chấm lại)
+    @Column(name = "gradingFailed")
+    private Boolean gradingFailed;
     @PrePersist
     protected void onCreate() {
         if (submittedAt == null) {
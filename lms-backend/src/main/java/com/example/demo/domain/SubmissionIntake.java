@@ -0,0 +1,59 @@
+package com.example.demo.domain;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Queued submission waiting to be graded when {@code lms.grading.async-intake=true}. The row holds
+ * the raw answers as JSON; a worker claims it by setting {@code claimToken}, grades the matching
+ * {@link Submission} and deletes the row.
+ */
+@Entity
+@Table(name = "SubmissionIntake", indexes = @Index(name = "idx_submission_intake_claim", columnList = "claimedAt"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class SubmissionIntake {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "submissionId", nullable = false, unique = true)
+    private Long submissionId;
+
+    @Column(name = "assignmentId", nullable = false)
+    private Long assignmentId;
+
+    @Column(name = "courseId", nullable = false)
+    private Long courseId;
+
+    @Column(name = "studentId", nullable = false, length = 36)
+    private String studentId;
+
+    @Column(name = "answers", columnDefinition = "TEXT", nullable = false)
+    private String answers;
+
+    @Column(name = "createdAt", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "claimToken", length = 36)
+    private String claimToken;
+
+    @Column(name = "claimedAt")
+    private LocalDateTime claimedAt;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+}
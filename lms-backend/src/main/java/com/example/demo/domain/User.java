@@ -60,9 +60,6 @@ public class User {
     @Column(name = "updatedAt")
     private LocalDateTime updatedAt;
 
-    @Column(columnDefinition = "TEXT")
-    private String refreshToken;
-
     public boolean isLocked() {
         return locked;
     }
@@ -0,0 +1,22 @@
+package com.example.demo.dto.request.document;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class FinalizeDocumentUploadDTO {
+    // fileKey trả về từ bước presign
+    @NotBlank
+    private String fileKey;
+
+    @NotBlank
+    private String title;
+
+    private String fileName;
+}
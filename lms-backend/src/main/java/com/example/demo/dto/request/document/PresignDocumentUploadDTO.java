@@ -0,0 +1,24 @@
+package com.example.demo.dto.request.document;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class PresignDocumentUploadDTO {
+    @NotBlank
+    private String fileName;
+
+    private String contentType;
+
+    @NotNull
+    @Positive
+    private Long fileSize;
+}
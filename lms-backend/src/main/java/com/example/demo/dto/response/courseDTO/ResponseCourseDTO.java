@@ -2,7 +2,6 @@ package com.example.demo.dto.response.courseDTO;
 
 
 import com.example.demo.domain.Course;
-import com.example.demo.domain.enumeration.EnrollmentStatus;
 import com.example.demo.dto.response.userDTO.ResUserDTO;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -22,7 +21,7 @@ public class ResponseCourseDTO {
     private String status;
     private int studentCount;
     private int assignmentCount;
-    public ResponseCourseDTO(Course course){
+    public ResponseCourseDTO(Course course, int studentCount, int assignmentCount){
         this.id=course.getId();
         this.name=course.getName();
         this.description=course.getDescription();
@@ -31,8 +30,8 @@ public class ResponseCourseDTO {
         if(course.getTeacher()!=null){
             this.teacher= ResUserDTO.fromUser(course.getTeacher());
         }
-        this.studentCount = course.getEnrollments() != null ? course.getEnrollments().stream().filter(o-> o.getStatus()== EnrollmentStatus.ACCEPTED).toList().size() : 0;
-        this.assignmentCount = course.getAssignments() != null ? course.getAssignments().size() : 0;
+        this.studentCount = studentCount;
+        this.assignmentCount = assignmentCount;
     }
-    public static ResponseCourseDTO fromCourse(Course course){return  new ResponseCourseDTO(course);}
+    public static ResponseCourseDTO fromCourse(Course course, int studentCount, int assignmentCount){return  new ResponseCourseDTO(course, studentCount, assignmentCount);}
 }
\ No newline at end of file
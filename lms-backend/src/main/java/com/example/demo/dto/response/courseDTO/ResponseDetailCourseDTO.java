@@ -2,12 +2,10 @@ package com.example.demo.dto.response.courseDTO;
 
 import com.example.demo.domain.Course;
 import com.example.demo.domain.User;
-import com.example.demo.domain.enumeration.EnrollmentStatus;
 import com.example.demo.dto.response.userDTO.ResUserDTO;
 import lombok.*;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Getter
 @Setter
@@ -28,13 +26,10 @@ public class ResponseDetailCourseDTO {
         int discussionsCount;
         double submissionRate;
     }
-    public ResponseDetailCourseDTO(Course course,int totalAssignments,int submittedAssignments,int documentsCount,int studentsCount,double averageGrade, int discussionsCount,double submissionRate) {
+    public ResponseDetailCourseDTO(Course course,List<User> students,int totalAssignments,int submittedAssignments,int documentsCount,int studentsCount,double averageGrade, int discussionsCount,double submissionRate) {
         this.course=course;
         this.teacher = course.getTeacher() != null ? course.getTeacher() : null;
-        this.students=course.getEnrollments().stream()
-                .filter(enrnrollment-> enrnrollment.getStatus()== EnrollmentStatus.ACCEPTED)
-                .map(enrollment -> enrollment.getStudent())
-                .collect(Collectors.toList());
+        this.students=students;
         this.data=new Dataa();
         this.data.totalAssignments=totalAssignments;
         this.data.submittedAssignments=submittedAssignments;
@@ -45,5 +40,5 @@ public class ResponseDetailCourseDTO {
         this.data.submissionRate= submissionRate;
 
     }
-    public static ResponseDetailCourseDTO fromCourse(Course course,int totalAssignments,int submittedAssignments,int documentsCount,int studentsCount,double averageGrade,int discussionsCount,double submissionRate){return  new ResponseDetailCourseDTO(course, totalAssignments,submittedAssignments,documentsCount,studentsCount,averageGrade,discussionsCount, submissionRate);}
+    public static ResponseDetailCourseDTO fromCourse(Course course,List<User> students,int totalAssignments,int submittedAssignments,int documentsCount,int studentsCount,double averageGrade,int discussionsCount,double submissionRate){return  new ResponseDetailCourseDTO(course, students, totalAssignments,submittedAssignments,documentsCount,studentsCount,averageGrade,discussionsCount, submissionRate);}
 }
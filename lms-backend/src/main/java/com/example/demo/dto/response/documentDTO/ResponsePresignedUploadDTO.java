@@ -0,0 +1,22 @@
+package com.example.demo.dto.response.documentDTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.Map;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ResponsePresignedUploadDTO {
+    private String fileKey;
+    private String uploadUrl;
+    private String method;
+    // Header client phải gửi kèm khi PUT (đã được ký)
+    private Map<String, String> headers;
+    private Instant expiresAt;
+}
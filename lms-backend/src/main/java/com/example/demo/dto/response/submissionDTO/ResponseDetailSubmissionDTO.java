@@ -19,8 +19,12 @@ public class ResponseDetailSubmissionDTO {
     private Long submissionId;
     private LocalDateTime submittedAt;
     private Double grade;
+    private Integer correctAnswers;
+    private Integer totalQuestions;
     private List<ResultAnswer> answers;
     private Boolean submitted;  // Thêm flag để FE biết đã nộp hay chưa
+    private Boolean grading;    // Đã nộp nhưng đang chờ chấm (chưa có điểm)
+    private Boolean gradingFailed; // Chấm thất bại sau mọi lần thử, sẽ không có điểm
 
     @Getter
     @Setter
@@ -41,7 +45,11 @@ public class ResponseDetailSubmissionDTO {
         this.submissionId = submission.getId();
         this.submittedAt = submission.getSubmittedAt();
         this.grade = submission.getGrade();
+        this.correctAnswers = submission.getCorrectCount();
+        this.totalQuestions = submission.getQuestionCount();
         this.submitted = true;  // ← đã nộp
+        this.gradingFailed = submission.getGrade() == null && Boolean.TRUE.equals(submission.getGradingFailed());
+        this.grading = submission.getGrade() == null && !this.gradingFailed;
 
         this.answers = new ArrayList<>();
         submission.getAnswerOfSubmissions().forEach(answer -> {
@@ -69,6 +77,8 @@ public class ResponseDetailSubmissionDTO {
         dto.grade = null;
         dto.answers = new ArrayList<>();
         dto.submitted = false; // ← quan trọng: FE biết chưa nộp
+        dto.grading = false;
+        dto.gradingFailed = false;
         return dto;
     }
 }
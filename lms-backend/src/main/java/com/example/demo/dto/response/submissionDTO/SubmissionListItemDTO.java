@@ -18,4 +18,12 @@ public class SubmissionListItemDTO {
     private Double grade;
     private int correctAnswers;
     private int totalQuestions;
+
+    // Dùng cho constructor expression trong SubmissionRepository (cột có thể null khi chưa chấm)
+    public SubmissionListItemDTO(String studentName, String studentEmail, LocalDateTime submittedAt, Double grade,
+                                 Integer correctAnswers, Integer totalQuestions) {
+        this(studentName, studentEmail, submittedAt, grade,
+                correctAnswers == null ? 0 : correctAnswers,
+                totalQuestions == null ? 0 : totalQuestions);
+    }
 }
@@ -0,0 +1,29 @@
+package com.example.demo.job;
+
+import com.example.demo.service.ObjectDeletionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drains the S3 deletion outbox on a fixed delay, one {@code DeleteObjects} batch after another
+ * until nothing is due.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ObjectDeletionWorker {
+    private final ObjectDeletionService objectDeletionService;
+
+    @Scheduled(fixedDelayString = "${lms.storage.deletion-poll-interval-ms:5000}")
+    public void poll() {
+        try {
+            while (objectDeletionService.drain() > 0) {
+                // keep going while there is a backlog
+            }
+        } catch (RuntimeException e) {
+            log.error("Draining the S3 deletion outbox failed", e);
+        }
+    }
+}
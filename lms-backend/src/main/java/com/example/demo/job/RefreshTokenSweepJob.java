@@ -0,0 +1,33 @@
+package com.example.demo.job;
+
+import com.example.demo.service.RefreshTokenService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Purges expired refresh tokens so the table only holds live sessions.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RefreshTokenSweepJob {
+    private final RefreshTokenService refreshTokenService;
+
+    @Value("${lms.security.refresh-token-sweep-batch-size:1000}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${lms.security.refresh-token-sweep-interval-ms:3600000}")
+    public void sweep() {
+        try {
+            int purged = refreshTokenService.purgeExpired(batchSize);
+            if (purged > 0) {
+                log.info("Purged {} expired refresh tokens", purged);
+            }
+        } catch (RuntimeException e) {
+            log.error("Purging expired refresh tokens failed", e);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.demo.job;
+
+import com.example.demo.service.StudentProgressService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Recomputes the student progress snapshot at startup. Enable it once after a schema change
+ * (or when the table is introduced) with {@code lms.progress.rebuild-on-startup=true}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "lms.progress.rebuild-on-startup", havingValue = "true")
+public class StudentProgressRebuildJob implements ApplicationRunner {
+    private final StudentProgressService studentProgressService;
+
+    @Value("${lms.progress.rebuild-batch-size:500}")
+    private int batchSize;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.currentTimeMillis();
+        int rows = studentProgressService.rebuildAll(batchSize);
+        log.info("Student progress snapshot rebuilt: {} rows in {} ms", rows, System.currentTimeMillis() - start);
+    }
+}
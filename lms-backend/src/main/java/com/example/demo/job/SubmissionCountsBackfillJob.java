@@ -0,0 +1,32 @@
+package com.example.demo.job;
+
+import com.example.demo.service.SubmissionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fills the correct/total answer counts of submissions graded before they were stored on
+ * {@code Submission}. Enable it once with {@code lms.submission.backfill-counts-on-startup=true}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "lms.submission.backfill-counts-on-startup", havingValue = "true")
+public class SubmissionCountsBackfillJob implements ApplicationRunner {
+    private final SubmissionService submissionService;
+
+    @Value("${lms.submission.backfill-batch-size:500}")
+    private int batchSize;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.currentTimeMillis();
+        int rows = submissionService.backfillAnswerCounts(batchSize);
+        log.info("Submission answer counts backfilled: {} rows in {} ms", rows, System.currentTimeMillis() - start);
+    }
+}
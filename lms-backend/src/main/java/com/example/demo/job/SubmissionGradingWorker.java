@@ -0,0 +1,155 @@
+package com.example.demo.job;
+
+import com.example.demo.domain.SubmissionIntake;
+import com.example.demo.repository.SubmissionIntakeRepository;
+import com.example.demo.service.SubmissionService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drains the {@link SubmissionIntake} queue when {@code lms.grading.async-intake=true}. The poller
+ * only claims as many batches as the bounded worker pool can accept, so a deadline spike piles up
+ * in the table instead of in memory. Rows of a crashed or timed-out worker are claimed again after
+ * {@code lms.grading.claim-timeout-seconds}, up to {@code lms.grading.max-attempts} times; after
+ * that the submission is marked {@code gradingFailed}, the row is deleted and the
+ * {@code lms.grading.failed} counter is incremented.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "lms.grading.async-intake", havingValue = "true")
+public class SubmissionGradingWorker {
+    private final SubmissionIntakeRepository submissionIntakeRepository;
+    private final SubmissionService submissionService;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor executor;
+    private final Counter failed;
+
+    @Value("${lms.grading.batch-size:100}")
+    private int batchSize;
+
+    @Value("${lms.grading.claim-timeout-seconds:120}")
+    private long claimTimeoutSeconds;
+
+    @Value("${lms.grading.max-attempts:5}")
+    private int maxAttempts;
+
+    public SubmissionGradingWorker(SubmissionIntakeRepository submissionIntakeRepository,
+                                   SubmissionService submissionService,
+                                   PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${lms.grading.workers:4}") int workers,
+                                   @Value("${lms.grading.worker-queue-capacity:8}") int queueCapacity) {
+        this.submissionIntakeRepository = submissionIntakeRepository;
+        this.submissionService = submissionService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> new Thread(runnable, "submission-grading-" + threadNumber.incrementAndGet()));
+        this.failed = Counter.builder("lms.grading.failed").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${lms.grading.poll-interval-ms:500}")
+    public void poll() {
+        try {
+            failExhausted();
+        } catch (RuntimeException e) {
+            log.error("Giving up exhausted queued submissions failed", e);
+        }
+        // only this thread submits, so a free queue slot cannot be taken in between
+        while (executor.getQueue().remainingCapacity() > 0) {
+            List<SubmissionIntake> batch = claimBatch();
+            if (batch.isEmpty()) {
+                return;
+            }
+            executor.execute(() -> grade(batch));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Rows whose last attempt crashed or timed out; a row that failed with an exception on its
+     * last attempt is given up on right away in {@link #grade}.
+     */
+    private void failExhausted() {
+        LocalDateTime staleBefore = LocalDateTime.now().minusSeconds(claimTimeoutSeconds);
+        List<SubmissionIntake> exhausted = submissionIntakeRepository
+                .findExhausted(staleBefore, maxAttempts, PageRequest.of(0, batchSize));
+        if (!exhausted.isEmpty()) {
+            giveUp(exhausted);
+        }
+    }
+
+    private void giveUp(List<SubmissionIntake> intakes) {
+        submissionService.failQueued(intakes);
+        failed.increment(intakes.size());
+        log.error("Gave up grading {} queued submissions after {} attempts: {}", intakes.size(), maxAttempts,
+                intakes.stream().map(SubmissionIntake::getSubmissionId).toList());
+    }
+
+    private List<SubmissionIntake> claimBatch() {
+        String token = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime staleBefore = now.minusSeconds(claimTimeoutSeconds);
+        return transactionTemplate.execute(status -> {
+            List<Long> ids = submissionIntakeRepository
+                    .findClaimableIds(staleBefore, maxAttempts, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                return List.of();
+            }
+            submissionIntakeRepository.claim(ids, token, now, staleBefore, maxAttempts);
+            return submissionIntakeRepository.findByClaimToken(token);
+        });
+    }
+
+    private void giveUpQuietly(SubmissionIntake intake) {
+        try {
+            giveUp(List.of(intake));
+        } catch (RuntimeException e) {
+            // failExhausted() thử lại khi claim hết hạn
+            log.warn("Could not mark queued submission {} as failed", intake.getSubmissionId(), e);
+        }
+    }
+
+    private void grade(List<SubmissionIntake> batch) {
+        try {
+            submissionService.gradeQueued(batch);
+        } catch (RuntimeException e) {
+            // isolate the failing row: grade the rest one by one, it stays queued for a retry
+            log.warn("Grading a batch of {} queued submissions failed, retrying one by one", batch.size(), e);
+            for (SubmissionIntake intake : batch) {
+                try {
+                    submissionService.gradeQueued(List.of(intake));
+                } catch (RuntimeException rowError) {
+                    log.error("Grading queued submission {} failed (attempt {})",
+                            intake.getSubmissionId(), intake.getAttempts(), rowError);
+                    if (intake.getAttempts() >= maxAttempts) {
+                        giveUpQuietly(intake);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.demo.repository;
+
+import com.example.demo.service.grading.GradedAnswers;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * Writes the graded answers of a submission as one JDBC batch. {@code AnswerOfSubmission} uses
+ * IDENTITY keys, which makes Hibernate fall back to one INSERT per entity.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AnswerOfSubmissionBatchWriter {
+    private static final String INSERT_SQL =
+            "INSERT INTO answer_of_submission (question_id, submission_id, answer, correct) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insertAll(long submissionId, GradedAnswers graded) {
+        if (graded.size() == 0) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setLong(1, graded.questionIds()[i]);
+                ps.setLong(2, submissionId);
+                if (graded.hasAnswer(i)) {
+                    ps.setByte(3, graded.answers()[i]);
+                } else {
+                    ps.setNull(3, Types.TINYINT);
+                }
+                ps.setBoolean(4, graded.correct()[i]);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return graded.size();
+            }
+        });
+    }
+}
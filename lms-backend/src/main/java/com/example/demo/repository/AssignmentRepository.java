@@ -2,17 +2,26 @@ package com.example.demo.repository;
 
 import com.example.demo.domain.Assignment;
 import com.example.demo.domain.User;
+import com.example.demo.repository.projection.CourseCount;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface AssignmentRepository extends JpaRepository<Assignment, Long>, JpaSpecificationExecutor<Assignment> {
+    long countByCourseId(Long courseId);
 
+    @Query("select a.course.id as courseId, count(a) as count from Assignment a " +
+            "where a.course.id in :courseIds group by a.course.id")
+    List<CourseCount> countGroupedByCourseId(@Param("courseIds") Collection<Long> courseIds);
 }
 
@@ -4,14 +4,30 @@ import com.example.demo.domain.Course;
 import com.example.demo.domain.CourseEnrollment;
 import com.example.demo.domain.User;
 import com.example.demo.domain.enumeration.EnrollmentStatus;
+import com.example.demo.repository.projection.EnrollmentKey;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CourseEnrollmentRepository extends JpaRepository<CourseEnrollment, Long>, JpaSpecificationExecutor<CourseEnrollment> {
     Optional<CourseEnrollment> findByStudentAndCourse(User user, Course course);
     boolean existsByStudentAndCourseAndStatus(User student, Course course, EnrollmentStatus status);
-}
\ No newline at end of file
+
+    @Query("select e.id as id, e.student.userId as studentId, e.course.id as courseId from CourseEnrollment e " +
+            "where e.status = :status and e.id > :afterId order by e.id")
+    List<EnrollmentKey> findKeysByStatusAfter(@Param("status") EnrollmentStatus status, @Param("afterId") Long afterId,
+                                              Pageable pageable);
+
+    @Query("select e.student from CourseEnrollment e where e.course.id = :courseId and e.status = :status")
+    List<User> findStudentsByCourseIdAndStatus(@Param("courseId") Long courseId, @Param("status") EnrollmentStatus status);
+
+    @Query("select e.student.userId from CourseEnrollment e where e.course.id = :courseId and e.status = :status")
+    List<String> findStudentIdsByCourseIdAndStatus(@Param("courseId") Long courseId, @Param("status") EnrollmentStatus status);
+}
@@ -3,15 +3,42 @@ package com.example.demo.repository;
 import com.example.demo.domain.Assignment;
 import com.example.demo.domain.Course;
 import com.example.demo.domain.User;
+import com.example.demo.domain.enumeration.EnrollmentStatus;
+import com.example.demo.repository.projection.CourseListCounts;
+import com.example.demo.repository.projection.CourseStats;
+import com.example.demo.repository.projection.CourseTeacher;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CourseRepository extends JpaRepository<Course, Long>, JpaSpecificationExecutor<Course> {
     Optional<Course> findById(Long id);
     Optional<Course> findByCode(String code);
-}
 
+    @Query("select " +
+            "(select count(a) from Assignment a where a.course.id = c.id) as assignmentCount, " +
+            "(select count(s) from Submission s where s.assignment.course.id = c.id) as submissionCount, " +
+            "(select avg(g.grade) from Submission g where g.assignment.course.id = c.id) as averageGrade, " +
+            "(select count(e) from CourseEnrollment e where e.course.id = c.id and e.status = :accepted) as acceptedStudentCount, " +
+            "(select count(d) from Discussion d where d.course.id = c.id) as discussionCount, " +
+            "(select count(doc) from Document doc where doc.course.id = c.id) as documentCount " +
+            "from Course c where c.id = :courseId")
+    CourseStats statsByCourseId(@Param("courseId") Long courseId, @Param("accepted") EnrollmentStatus accepted);
+
+    @Query("select c.id as courseId, " +
+            "(select count(e) from CourseEnrollment e where e.course.id = c.id and e.status = :accepted) as studentCount, " +
+            "(select count(a) from Assignment a where a.course.id = c.id) as assignmentCount " +
+            "from Course c where c.id in :courseIds")
+    List<CourseListCounts> countsByCourseIds(@Param("courseIds") Collection<Long> courseIds,
+                                             @Param("accepted") EnrollmentStatus accepted);
+
+    @Query("select c.id as courseId, t.userId as teacherId from Course c left join c.teacher t where c.id = :courseId")
+    Optional<CourseTeacher> findTeacherByCourseId(@Param("courseId") Long courseId);
+}
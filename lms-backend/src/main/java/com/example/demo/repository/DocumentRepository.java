@@ -1,15 +1,26 @@
 package com.example.demo.repository;
 
 
-import com.example.demo.domain.Course;
 import com.example.demo.domain.Document;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
 @Repository
 public interface DocumentRepository extends JpaRepository<Document, Long>, JpaSpecificationExecutor<Document> {
-    List<Document> findAllByCourse(Course course);
+    List<Document> findAllByCourseId(Long courseId);
+    boolean existsByFileUrl(String fileUrl);
+
+    @Query("select d.fileUrl from Document d where d.course.id = :courseId")
+    List<String> findFileUrlsByCourseId(@Param("courseId") Long courseId);
+
+    // mọi tài liệu cùng nội dung dùng chung một ảnh xem trước
+    @Modifying
+    @Query("update Document d set d.previewKey = :previewKey where d.fileUrl = :fileUrl")
+    int setPreviewKey(@Param("fileUrl") String fileUrl, @Param("previewKey") String previewKey);
 }
\ No newline at end of file
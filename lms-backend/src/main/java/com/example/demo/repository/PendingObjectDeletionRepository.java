@@ -0,0 +1,30 @@
+package com.example.demo.repository;
+
+import com.example.demo.domain.PendingObjectDeletion;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PendingObjectDeletionRepository extends JpaRepository<PendingObjectDeletion, Long> {
+
+    @Query("select p from PendingObjectDeletion p where p.nextAttemptAt <= :now order by p.id")
+    List<PendingObjectDeletion> findDue(@Param("now") LocalDateTime now, Pageable pageable);
+
+    @Modifying
+    @Query("update PendingObjectDeletion p set p.attempts = p.attempts + 1, p.nextAttemptAt = :nextAttemptAt, " +
+            "p.lastError = :error where p.id = :id")
+    int recordFailure(@Param("id") Long id, @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                      @Param("error") String error);
+
+    @Modifying
+    @Query("delete from PendingObjectDeletion p where p.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+}
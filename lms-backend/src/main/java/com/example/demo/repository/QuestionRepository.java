@@ -2,12 +2,20 @@ package com.example.demo.repository;
 
 import com.example.demo.domain.Assignment;
 import com.example.demo.domain.Question;
+import com.example.demo.repository.projection.QuestionAnswer;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface QuestionRepository extends JpaRepository<Question, Long>, JpaSpecificationExecutor<Question> {
 
+    @Query("select q.id as id, q.correctAnswer as correctAnswer from Question q " +
+            "where q.assignment.id = :assignmentId order by q.id")
+    List<QuestionAnswer> findAnswerKeyByAssignmentId(@Param("assignmentId") Long assignmentId);
 }
 
@@ -0,0 +1,42 @@
+package com.example.demo.repository;
+
+import com.example.demo.domain.RefreshToken;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    /**
+     * Replaces a live token by its successor. Affects nothing if the old token was already
+     * rotated, revoked or is expired, so a token can be used once.
+     */
+    @Modifying
+    @Query("update RefreshToken r set r.tokenHash = :newHash, r.expiresAt = :expiresAt " +
+            "where r.tokenHash = :oldHash and r.expiresAt > :now")
+    int rotate(@Param("oldHash") String oldHash, @Param("newHash") String newHash,
+               @Param("expiresAt") LocalDateTime expiresAt, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("delete from RefreshToken r where r.tokenHash = :tokenHash")
+    int deleteByTokenHash(@Param("tokenHash") String tokenHash);
+
+    @Modifying
+    @Query("delete from RefreshToken r where r.userId = :userId")
+    int deleteByUserId(@Param("userId") String userId);
+
+    @Query("select r.id from RefreshToken r where r.expiresAt <= :now order by r.id")
+    List<Long> findExpiredIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    @Modifying
+    @Query("delete from RefreshToken r where r.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+}
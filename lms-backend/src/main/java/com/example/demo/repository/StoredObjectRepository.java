@@ -0,0 +1,58 @@
+package com.example.demo.repository;
+
+import com.example.demo.domain.StoredObject;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface StoredObjectRepository extends JpaRepository<StoredObject, String> {
+
+    /**
+     * Takes one more reference on an existing object. Blocks while the deletion worker holds the
+     * row, and affects nothing once it has removed it.
+     */
+    @Modifying
+    @Query("update StoredObject s set s.refCount = s.refCount + 1 where s.objectKey = :objectKey")
+    int acquire(@Param("objectKey") String objectKey);
+
+    /**
+     * First reference on a freshly uploaded object, or one more if a concurrent upload of the
+     * same bytes created the row first.
+     */
+    @Modifying
+    @Query(value = "insert into stored_object (object_key, sha256, size, content_type, etag, ref_count, created_at) " +
+            "values (:objectKey, :sha256, :size, :contentType, :etag, 1, :now) " +
+            "on duplicate key update ref_count = ref_count + 1", nativeQuery = true)
+    int acquireNew(@Param("objectKey") String objectKey, @Param("sha256") String sha256, @Param("size") long size,
+                   @Param("contentType") String contentType, @Param("etag") String etag,
+                   @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("update StoredObject s set s.refCount = case when s.refCount > :count then s.refCount - :count else 0 end " +
+            "where s.objectKey = :objectKey")
+    int release(@Param("objectKey") String objectKey, @Param("count") int count);
+
+    @Query("select s.objectKey from StoredObject s where s.objectKey in :objectKeys and s.refCount = 0")
+    List<String> findUnreferencedKeys(@Param("objectKeys") Collection<String> objectKeys);
+
+    /**
+     * Locks the rows of the given keys until the end of the transaction, so that no upload can
+     * take a reference while their objects are being deleted.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from StoredObject s where s.objectKey in :objectKeys")
+    List<StoredObject> lockByObjectKeys(@Param("objectKeys") Collection<String> objectKeys);
+
+    @Modifying
+    @Query("delete from StoredObject s where s.objectKey in :objectKeys and s.refCount = 0")
+    int deleteUnreferenced(@Param("objectKeys") Collection<String> objectKeys);
+}
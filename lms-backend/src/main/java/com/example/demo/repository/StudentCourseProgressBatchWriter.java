@@ -0,0 +1,56 @@
+package com.example.demo.repository;
+
+import com.example.demo.domain.StudentCourseProgress;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Writes recomputed {@link StudentCourseProgress} rows as one JDBC batch of upserts, so a row
+ * created meanwhile by a submission or an accepted enrollment is overwritten instead of failing
+ * the batch with a duplicate key.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StudentCourseProgressBatchWriter {
+    private static final String UPSERT_SQL =
+            "INSERT INTO student_course_progress (student_id, course_id, assignment_count, submitted_count, " +
+                    "graded_count, graded_sum, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?) " +
+                    "ON DUPLICATE KEY UPDATE assignment_count = VALUES(assignment_count), " +
+                    "submitted_count = VALUES(submitted_count), graded_count = VALUES(graded_count), " +
+                    "graded_sum = VALUES(graded_sum), updated_at = VALUES(updated_at)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void upsertAll(List<StudentCourseProgress> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(UPSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                StudentCourseProgress row = rows.get(i);
+                ps.setString(1, row.getStudentId());
+                ps.setLong(2, row.getCourseId());
+                ps.setInt(3, row.getAssignmentCount());
+                ps.setInt(4, row.getSubmittedCount());
+                ps.setInt(5, row.getGradedCount());
+                ps.setDouble(6, row.getGradedSum());
+                ps.setTimestamp(7, now);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.demo.repository;
+
+import com.example.demo.domain.StudentCourseProgress;
+import com.example.demo.repository.projection.ProgressTotals;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface StudentCourseProgressRepository extends JpaRepository<StudentCourseProgress, StudentCourseProgress.Key> {
+
+    @Query("select count(p) as courseCount, sum(p.assignmentCount) as assignmentCount, " +
+            "sum(p.submittedCount) as submittedCount, sum(p.gradedCount) as gradedCount, " +
+            "sum(p.gradedSum) as gradedSum from StudentCourseProgress p where p.studentId = :studentId")
+    ProgressTotals totalsByStudentId(@Param("studentId") String studentId);
+
+    @Modifying
+    @Query("update StudentCourseProgress p set p.submittedCount = p.submittedCount + 1, " +
+            "p.gradedCount = p.gradedCount + 1, p.gradedSum = p.gradedSum + :grade " +
+            "where p.studentId = :studentId and p.courseId = :courseId")
+    int recordGradedSubmission(@Param("studentId") String studentId, @Param("courseId") Long courseId,
+                               @Param("grade") double grade);
+
+    @Modifying
+    @Query("update StudentCourseProgress p set p.submittedCount = p.submittedCount + 1 " +
+            "where p.studentId = :studentId and p.courseId = :courseId")
+    int recordSubmission(@Param("studentId") String studentId, @Param("courseId") Long courseId);
+
+    @Modifying
+    @Query("update StudentCourseProgress p set p.gradedCount = p.gradedCount + 1, p.gradedSum = p.gradedSum + :grade " +
+            "where p.studentId = :studentId and p.courseId = :courseId")
+    int recordGrade(@Param("studentId") String studentId, @Param("courseId") Long courseId,
+                    @Param("grade") double grade);
+
+    @Modifying
+    @Query("update StudentCourseProgress p set p.assignmentCount = p.assignmentCount + :delta where p.courseId = :courseId")
+    int adjustAssignmentCount(@Param("courseId") Long courseId, @Param("delta") int delta);
+
+    @Modifying
+    @Query("delete from StudentCourseProgress p where p.courseId = :courseId")
+    int deleteByCourseId(@Param("courseId") Long courseId);
+
+    @Modifying
+    @Query("delete from StudentCourseProgress p where p.studentId = :studentId")
+    int deleteByStudentId(@Param("studentId") String studentId);
+
+    /**
+     * Locks the existing rows of these students in these courses (and the gaps of the missing
+     * ones) until the end of the transaction; the rebuild takes it before reading submissions.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p from StudentCourseProgress p where p.studentId in :studentIds and p.courseId in :courseIds")
+    List<StudentCourseProgress> lockByStudentIdsAndCourseIds(@Param("studentIds") Collection<String> studentIds,
+                                                             @Param("courseIds") Collection<Long> courseIds);
+
+    /**
+     * Rows no write has touched since {@code before}; used by the rebuild to drop snapshots of
+     * enrollments that are no longer accepted.
+     */
+    @Modifying
+    @Query("delete from StudentCourseProgress p where p.updatedAt is null or p.updatedAt < :before")
+    int deleteNotUpdatedSince(@Param("before") LocalDateTime before);
+}
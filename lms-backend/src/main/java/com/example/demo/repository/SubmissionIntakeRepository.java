@@ -0,0 +1,58 @@
+package com.example.demo.repository;
+
+import com.example.demo.domain.SubmissionIntake;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface SubmissionIntakeRepository extends JpaRepository<SubmissionIntake, Long> {
+
+    /**
+     * Rows nobody holds: never claimed, or claimed by a worker that did not finish in time.
+     */
+    @Query("select i.id from SubmissionIntake i " +
+            "where (i.claimedAt is null or i.claimedAt < :staleBefore) and i.attempts < :maxAttempts order by i.id")
+    List<Long> findClaimableIds(@Param("staleBefore") LocalDateTime staleBefore,
+                                @Param("maxAttempts") int maxAttempts, Pageable pageable);
+
+    /**
+     * Takes the given rows for {@code token}, re-checking they are still free so that two
+     * pollers never claim the same row.
+     */
+    @Modifying
+    @Query("update SubmissionIntake i set i.claimToken = :token, i.claimedAt = :now, i.attempts = i.attempts + 1 " +
+            "where i.id in :ids and (i.claimedAt is null or i.claimedAt < :staleBefore) and i.attempts < :maxAttempts")
+    int claim(@Param("ids") Collection<Long> ids, @Param("token") String token, @Param("now") LocalDateTime now,
+              @Param("staleBefore") LocalDateTime staleBefore, @Param("maxAttempts") int maxAttempts);
+
+    List<SubmissionIntake> findByClaimToken(String claimToken);
+
+    /**
+     * Rows that used all their attempts and whose last claim has run out, i.e. nobody will
+     * grade them any more.
+     */
+    @Query("select i from SubmissionIntake i " +
+            "where i.attempts >= :maxAttempts and i.claimedAt < :staleBefore order by i.id")
+    List<SubmissionIntake> findExhausted(@Param("staleBefore") LocalDateTime staleBefore,
+                                         @Param("maxAttempts") int maxAttempts, Pageable pageable);
+
+    @Modifying
+    @Query("delete from SubmissionIntake i where i.assignmentId = :assignmentId")
+    int deleteByAssignmentId(@Param("assignmentId") Long assignmentId);
+
+    @Modifying
+    @Query("delete from SubmissionIntake i where i.courseId = :courseId")
+    int deleteByCourseId(@Param("courseId") Long courseId);
+
+    @Modifying
+    @Query("delete from SubmissionIntake i where i.studentId = :studentId")
+    int deleteByStudentId(@Param("studentId") String studentId);
+}
@@ -3,10 +3,20 @@ package com.example.demo.repository;
 import com.example.demo.domain.Assignment;
 import com.example.demo.domain.Submission;
 import com.example.demo.domain.User;
+import com.example.demo.dto.response.submissionDTO.SubmissionListItemDTO;
+import com.example.demo.repository.projection.StudentCourseSubmissionStats;
+import com.example.demo.repository.projection.SubmissionStats;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.Optional;
 import java.util.List;
 @Repository
@@ -15,4 +25,60 @@ public interface SubmissionRepository extends JpaRepository<Submission, Long>, J
     Optional<Submission> findByAssignmentAndStudent(Assignment assignment, User user);
     List<Submission> findByAssignmentId(Long assignmentId);
 
+    /**
+     * Submission with its student, answers and their questions in one statement, for
+     * {@code ResponseDetailSubmissionDTO}.
+     */
+    @EntityGraph(attributePaths = {"student", "answerOfSubmissions", "answerOfSubmissions.question"})
+    Optional<Submission> findWithAnswersById(Long id);
+
+    @EntityGraph(attributePaths = {"student", "answerOfSubmissions", "answerOfSubmissions.question"})
+    Optional<Submission> findWithAnswersByAssignmentIdAndStudentUserId(Long assignmentId, String studentId);
+
+    boolean existsByIdAndAssignmentCourseTeacherUserId(Long id, String teacherId);
+
+    @Query("select count(s) as submissionCount, count(s.grade) as gradedCount, sum(s.grade) as gradeSum, " +
+            "avg(s.grade) as averageGrade from Submission s " +
+            "where s.student.userId = :studentId and s.assignment.course.id = :courseId")
+    SubmissionStats statsByStudentAndCourse(@Param("studentId") String studentId, @Param("courseId") Long courseId);
+
+    @Query("select s.student.userId as studentId, s.assignment.course.id as courseId, count(s) as submissionCount, " +
+            "count(s.grade) as gradedCount, sum(s.grade) as gradeSum from Submission s " +
+            "where s.student.userId in :studentIds and s.assignment.course.id in :courseIds " +
+            "group by s.student.userId, s.assignment.course.id")
+    List<StudentCourseSubmissionStats> statsGroupedByStudentAndCourse(@Param("studentIds") Collection<String> studentIds,
+                                                                      @Param("courseIds") Collection<Long> courseIds);
+
+    /**
+     * Teacher roster of an assignment, sortable by {@code grade} or {@code submittedAt}.
+     */
+    @Query(value = "select new com.example.demo.dto.response.submissionDTO.SubmissionListItemDTO(" +
+            "st.name, st.email, s.submittedAt, s.grade, s.correctCount, s.questionCount) " +
+            "from Submission s join s.student st where s.assignment.id = :assignmentId",
+            countQuery = "select count(s) from Submission s where s.assignment.id = :assignmentId")
+    Page<SubmissionListItemDTO> findRosterByAssignmentId(@Param("assignmentId") Long assignmentId, Pageable pageable);
+
+    @Modifying
+    @Query("update Submission s set s.grade = :grade, s.correctCount = :correctCount, s.questionCount = :questionCount " +
+            "where s.id = :id and s.grade is null")
+    int recordGrade(@Param("id") Long id, @Param("grade") double grade,
+                    @Param("correctCount") int correctCount, @Param("questionCount") int questionCount);
+
+    @Modifying
+    @Query("update Submission s set s.gradingFailed = true where s.id in :ids and s.grade is null")
+    int markGradingFailed(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Graded submissions from before the count columns existed, in id order.
+     */
+    @Query("select s.id from Submission s where s.grade is not null and s.correctCount is null and s.id > :afterId order by s.id")
+    List<Long> findIdsMissingCountsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Modifying
+    @Query("update Submission s set " +
+            "s.correctCount = (select count(a) from AnswerOfSubmission a where a.submission.id = s.id and a.correct = true), " +
+            "s.questionCount = (select count(q) from Question q where q.assignment.id = s.assignment.id) " +
+            "where s.id in :ids")
+    int backfillCounts(@Param("ids") Collection<Long> ids);
+
 }
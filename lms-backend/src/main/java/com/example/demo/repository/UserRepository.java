@@ -1,6 +1,7 @@
 package com.example.demo.repository;
 
 import com.example.demo.domain.User;
+import com.example.demo.repository.projection.UserIdentity;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import org.springframework.data.domain.Page;
@@ -8,6 +9,9 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -17,7 +21,14 @@ public interface UserRepository extends JpaRepository<User, String>, JpaSpecific
    Optional<User> findByEmail(String email);
 
    boolean existsByEmail(String email);
-   Optional<User> findByEmailAndRefreshToken(String email,String refreshToken);
    Page<User> findAll(Specification<User> specification, Pageable pageable);
+
+   @Query("select new com.example.demo.repository.projection.UserIdentity(u.userId, u.email, u.role, u.locked) " +
+           "from User u where u.email = :email")
+   Optional<UserIdentity> findIdentityByEmail(@Param("email") String email);
+
+   @Modifying
+   @Query("update User u set u.password = :password where u.email = :email")
+   int updatePassword(@Param("email") String email, @Param("password") String password);
 }
 
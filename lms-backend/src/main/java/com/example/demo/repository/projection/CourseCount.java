@@ -0,0 +1,7 @@
+package com.example.demo.repository.projection;
+
+public interface CourseCount {
+    Long getCourseId();
+
+    Long getCount();
+}
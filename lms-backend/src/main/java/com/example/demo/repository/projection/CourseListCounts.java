@@ -0,0 +1,9 @@
+package com.example.demo.repository.projection;
+
+public interface CourseListCounts {
+    Long getCourseId();
+
+    Long getStudentCount();
+
+    Long getAssignmentCount();
+}
@@ -0,0 +1,18 @@
+package com.example.demo.repository.projection;
+
+/**
+ * Header figures of a course detail page, computed by the database in one statement.
+ */
+public interface CourseStats {
+    Long getAssignmentCount();
+
+    Long getSubmissionCount();
+
+    Double getAverageGrade();
+
+    Long getAcceptedStudentCount();
+
+    Long getDiscussionCount();
+
+    Long getDocumentCount();
+}
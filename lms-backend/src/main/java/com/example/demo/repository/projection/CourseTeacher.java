@@ -0,0 +1,7 @@
+package com.example.demo.repository.projection;
+
+public interface CourseTeacher {
+    Long getCourseId();
+
+    String getTeacherId();
+}
@@ -0,0 +1,9 @@
+package com.example.demo.repository.projection;
+
+public interface EnrollmentKey {
+    Long getId();
+
+    String getStudentId();
+
+    Long getCourseId();
+}
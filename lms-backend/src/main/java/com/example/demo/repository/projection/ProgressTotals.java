@@ -0,0 +1,16 @@
+package com.example.demo.repository.projection;
+
+/**
+ * Sum of a student's {@code StudentCourseProgress} rows across all of their courses.
+ */
+public interface ProgressTotals {
+    Long getCourseCount();
+
+    Long getAssignmentCount();
+
+    Long getSubmittedCount();
+
+    Long getGradedCount();
+
+    Double getGradedSum();
+}
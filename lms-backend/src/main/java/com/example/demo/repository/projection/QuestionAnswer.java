@@ -0,0 +1,9 @@
+package com.example.demo.repository.projection;
+
+import com.example.demo.domain.enumeration.Answer;
+
+public interface QuestionAnswer {
+    Long getId();
+
+    Answer getCorrectAnswer();
+}
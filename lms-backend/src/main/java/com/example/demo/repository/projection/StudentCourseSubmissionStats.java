@@ -0,0 +1,16 @@
+package com.example.demo.repository.projection;
+
+/**
+ * {@link SubmissionStats} grouped by student and course, used to rebuild progress snapshots.
+ */
+public interface StudentCourseSubmissionStats {
+    String getStudentId();
+
+    Long getCourseId();
+
+    Long getSubmissionCount();
+
+    Long getGradedCount();
+
+    Double getGradeSum();
+}
@@ -0,0 +1,14 @@
+package com.example.demo.repository.projection;
+
+/**
+ * Aggregate over a set of submissions: how many there are and the grades of the graded ones.
+ */
+public interface SubmissionStats {
+    Long getSubmissionCount();
+
+    Long getGradedCount();
+
+    Double getGradeSum();
+
+    Double getAverageGrade();
+}
@@ -0,0 +1,13 @@
+package com.example.demo.repository.projection;
+
+import com.example.demo.domain.enumeration.Role;
+
+/**
+ * The part of a {@link com.example.demo.domain.User} that access checks need.
+ */
+public record UserIdentity(String userId, String email, Role role, Boolean locked) {
+
+    public boolean isLocked() {
+        return Boolean.TRUE.equals(locked);
+    }
+}
@@ -1,12 +1,15 @@
 package com.example.demo.service;
 
 import com.example.demo.domain.*;
+import com.example.demo.domain.enumeration.Role;
 import com.example.demo.domain.enumeration.StatusAssignment;
 import com.example.demo.dto.request.assignment.CreateAssignmentDTO;
 import com.example.demo.dto.response.assignmentDTO.ResponseAssignmentForStudentDTO;
 import com.example.demo.dto.response.ResultPaginationDTO;
 import com.example.demo.dto.response.assignmentDTO.ResponseAssignmentDTO;
 import com.example.demo.repository.*;
+import com.example.demo.repository.projection.UserIdentity;
+import com.example.demo.service.grading.AnswerKeyCache;
 import com.example.demo.util.errors.ResourceNotFoundException;
 import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
@@ -14,6 +17,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -23,26 +27,32 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class AssignmentService {
     final private AssignmentRepository assignmentRepository;
-    final private UserRepository userRepository;
     final private CourseRepository courseRepository;
     final private QuestionRepository questionRepository;
-    final private CourseEnrollmentRepository courseEnrollmentRepository;
     final private SubmissionRepository submissionRepository;
-    private void validateTeacher(Course course, String currentUserEmail) {
-        User teacher= course.getTeacher();
-        if (course.getTeacher() == null) {
+    final private StudentProgressService studentProgressService;
+    final private AnswerKeyCache answerKeyCache;
+    final private SubmissionIntakeRepository submissionIntakeRepository;
+    final private UserIdentityCache userIdentityCache;
+    final private CourseMembershipService courseMembershipService;
+    private void validateTeacher(Long courseId, String currentUserEmail) {
+        CourseMembership membership = courseMembershipService.find(courseId)
+                .orElseThrow(() -> new ResourceNotFoundException("Course not found"));
+        if (membership.teacherId() == null) {
             throw new ResourceNotFoundException("Course has no assigned teacher");
         }
-        if (!teacher.getEmail().equals(currentUserEmail)) {
+        UserIdentity user = userIdentityCache.findActive(currentUserEmail).orElse(null);
+        if (user == null || !membership.isTeacher(user.userId())) {
             throw new SecurityException("You are not the teacher of this course");
         }
     }
+    @Transactional
     public Assignment createAssignment(CreateAssignmentDTO dto, String currentUserEmail) {
         Course course = courseRepository.findById(dto.getCourseId()).orElse(null);
         if (course == null) {
             throw new ResourceNotFoundException("Course not found");
         }
-        validateTeacher(course, currentUserEmail);
+        validateTeacher(course.getId(), currentUserEmail);
         Assignment assignment = new Assignment();
         assignment.setTitle(dto.getTitle());
         assignment.setDescription(dto.getDescription());
@@ -64,42 +74,44 @@ public class AssignmentService {
         }
         assignment.setQuestions(questions);
 
-        return assignmentRepository.save(assignment);
+        Assignment saved = assignmentRepository.save(assignment);
+        studentProgressService.onAssignmentCreated(course.getId());
+        return saved;
     }
+    @Transactional
     public void deleteAssignment(Long assignmentId,  String currentUserEmail) {
         Assignment assignment = assignmentRepository.findById(assignmentId).orElse(null);
         if (assignment == null) {
             throw new ResourceNotFoundException("Assignment not found");
         }
-        validateTeacher(assignment.getCourse(), currentUserEmail);
+        validateTeacher(assignment.getCourse().getId(), currentUserEmail);
+        Long courseId = assignment.getCourse().getId();
+        submissionIntakeRepository.deleteByAssignmentId(assignmentId);
         List<Submission> submissions= assignment.getSubmissions();
         submissionRepository.deleteAll(submissions);
         List<Question> questions = assignment.getQuestions();
         questionRepository.deleteAll(questions);
         assignmentRepository.deleteById(assignmentId);
+        studentProgressService.onAssignmentDeleted(courseId);
+        answerKeyCache.invalidate(assignmentId);
     }
     public ResultPaginationDTO getAllAssignmentsByCourseId(Long courseId,String title , Pageable pageable, String currentUserEmail) {
-        if (courseRepository.findById(courseId).isEmpty()) {
+        CourseMembership membership= courseMembershipService.find(courseId).orElse(null);
+        if (membership==null){
             throw new ResourceNotFoundException("Course not found");
         }
-        User currentUser= userRepository.findByEmail(currentUserEmail).orElse(null);
-        User user= userRepository.findByEmail(currentUserEmail).orElse(null);
-        if (currentUser==null){
+        UserIdentity user= userIdentityCache.findActive(currentUserEmail).orElse(null);
+        if (user==null){
             throw new ResourceNotFoundException("User not found");
         }
-        Course course= courseRepository.findById(courseId).orElse(null);
-        if (course==null){
-            throw new ResourceNotFoundException("Course not found");
-        }
-        switch (user.getRole()){
+        switch (user.role()){
             case STUDENT:
-                boolean isEnrolled=courseEnrollmentRepository.existsByStudentAndCourseAndStatus(user,course, com.example.demo.domain.enumeration.EnrollmentStatus.ACCEPTED);
-                if(!isEnrolled){
+                if(!membership.isAcceptedStudent(user.userId())){
                     throw new RuntimeException("User not enrolled in course");
                 }
                 break;
             case TEACHER:
-                if(!course.getTeacher().getEmail().equals(currentUserEmail)){
+                if(!membership.isTeacher(user.userId())){
                     throw new RuntimeException("User not in course");
                 }
                 break;
@@ -114,7 +126,7 @@ public class AssignmentService {
                 predicate = cb.and(predicate, cb.like(cb.lower(root.get("title")), "%" + title.toLowerCase() + "%"));
             }
             predicate = cb.and(predicate, cb.equal(root.get("course").get("id"), courseId));
-            if (currentUser.getRole().toString().equals("STUDENT")){
+            if (user.role() == Role.STUDENT){
                 predicate = cb.and(predicate, cb.equal(root.get("status"), StatusAssignment.PUBLISHED));
             }
             return predicate;
@@ -140,23 +152,23 @@ public class AssignmentService {
         if (assignment == null) {
             throw new ResourceNotFoundException("Assignment not found");
         }
-        validateTeacher(assignment.getCourse(), currentUserEmail);
-        User user= userRepository.findByEmail(currentUserEmail).orElse(null);
+        validateTeacher(assignment.getCourse().getId(), currentUserEmail);
+        UserIdentity user= userIdentityCache.findActive(currentUserEmail).orElse(null);
         if (user==null){
             throw new ResourceNotFoundException("User not found");
         }
-        if (user.getRole().toString().equals("STUDENT")){
+        if (user.role() == Role.STUDENT){
             if (assignment.getStatus() != StatusAssignment.PUBLISHED){
                 throw new ResourceNotFoundException("Assignment not Published");
             }
-            boolean isEnrolled=courseEnrollmentRepository.existsByStudentAndCourseAndStatus(user,assignment.getCourse(), com.example.demo.domain.enumeration.EnrollmentStatus.ACCEPTED);
-            if(!isEnrolled){
+            if(!courseMembershipService.isAcceptedStudent(assignment.getCourse().getId(), user.userId())){
                 throw new RuntimeException("User not enrolled in course");
             }
         }
 
         return assignment;
     }
+    @Transactional
     public Assignment updateAssignment(Long assignmentId, CreateAssignmentDTO dto, String currentUserEmail) {
     // ✅ FIX 1: Tìm assignment (không phải course!)
     Assignment assignment = assignmentRepository.findById(assignmentId).orElse(null);
@@ -171,13 +183,15 @@ public class AssignmentService {
     }
     
     // Validate teacher
-    validateTeacher(assignment.getCourse(), currentUserEmail);
+    validateTeacher(assignment.getCourse().getId(), currentUserEmail);
     
     // ⭐ GIỮ NGUYÊN CHECK NÀY - Chỉ cho phép update DRAFT
     if (assignment.getStatus() != StatusAssignment.DRAFT) {
         throw new IllegalStateException("Cannot update a published assignment");
     }
     
+    Long previousCourseId = assignment.getCourse().getId();
+
     // Cập nhật các trường
     assignment.getQuestions().clear();  // Hibernate tự orphan-delete
 
@@ -200,7 +214,12 @@ public class AssignmentService {
         assignment.getQuestions().add(question);
     }
     
-    return assignmentRepository.save(assignment);
+    Assignment saved = assignmentRepository.save(assignment);
+    answerKeyCache.invalidate(assignmentId);
+    if (!previousCourseId.equals(course.getId())) {
+        studentProgressService.onAssignmentMoved(previousCourseId, course.getId());
+    }
+    return saved;
 }   
     public ResponseAssignmentForStudentDTO getAssignmentDetailForStudent(Long assignmentId, String currentUserEmail) {
         Assignment assignment = assignmentRepository.findById(assignmentId).orElse(null);
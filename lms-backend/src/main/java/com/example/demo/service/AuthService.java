@@ -6,6 +6,7 @@ import com.example.demo.util.errors.CustomException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @RequiredArgsConstructor
@@ -23,16 +24,9 @@ public class AuthService {
         userRepository.save(user);
         return user;
     }
-    public void updateUserToken(String token, String email) {
-
-        User currentUser=userRepository.findByEmail(email).orElse(null);
-        if (currentUser!=null) {
-            currentUser.setRefreshToken(token);
-            this.userRepository.save(currentUser);
-        }
-    }
-    public User getUserByEmailAndRefreshToken(String email, String refreshToken) {
-        return userRepository.findByEmailAndRefreshToken(email,refreshToken).orElse(null);
+    @Transactional
+    public void updatePasswordHash(String email, String encodedPassword) {
+        userRepository.updatePassword(email, encodedPassword);
     }
     public void resetPassword(String email, String currentPassword, String newPassword) {
     User user = userRepository.findByEmail(email)
@@ -0,0 +1,17 @@
+package com.example.demo.service;
+
+import java.util.Set;
+
+/**
+ * Who may use a course: its teacher and its ACCEPTED students, by user id.
+ */
+public record CourseMembership(Long courseId, String teacherId, Set<String> studentIds) {
+
+    public boolean isTeacher(String userId) {
+        return teacherId != null && teacherId.equals(userId);
+    }
+
+    public boolean isAcceptedStudent(String userId) {
+        return studentIds.contains(userId);
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.demo.service;
+
+import com.example.demo.domain.enumeration.EnrollmentStatus;
+import com.example.demo.repository.CourseEnrollmentRepository;
+import com.example.demo.repository.CourseRepository;
+import com.example.demo.repository.projection.CourseTeacher;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Teacher / ACCEPTED-student checks of a course, answered from a {@link CourseMembership} kept in
+ * memory per course id. A miss reads the teacher id and the accepted student ids with two small
+ * queries; enrollment and course writes call {@link #invalidate}. Unknown courses are not cached.
+ * Invalidation only reaches the cache of the instance that made the write, so other instances
+ * may answer from the old members for up to {@code lms.course-membership.cache-ttl}.
+ * Hits and misses are published as the {@code courseMemberships} cache metrics.
+ */
+@Service
+public class CourseMembershipService {
+    final private CourseRepository courseRepository;
+    final private CourseEnrollmentRepository courseEnrollmentRepository;
+    final private Cache<Long, CourseMembership> cache;
+
+    public CourseMembershipService(CourseRepository courseRepository,
+                                   CourseEnrollmentRepository courseEnrollmentRepository,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${lms.course-membership.cache-size:2000}") long maximumSize,
+                                   @Value("${lms.course-membership.cache-ttl:1m}") Duration ttl) {
+        this.courseRepository = courseRepository;
+        this.courseEnrollmentRepository = courseEnrollmentRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "courseMemberships");
+    }
+
+    /**
+     * Empty if the course does not exist.
+     */
+    public Optional<CourseMembership> find(Long courseId) {
+        return Optional.ofNullable(cache.get(courseId, this::load));
+    }
+
+    public boolean isTeacher(Long courseId, String userId) {
+        return find(courseId).map(membership -> membership.isTeacher(userId)).orElse(false);
+    }
+
+    public boolean isAcceptedStudent(Long courseId, String userId) {
+        return find(courseId).map(membership -> membership.isAcceptedStudent(userId)).orElse(false);
+    }
+
+    /**
+     * Evicts now and again once the surrounding transaction completes, so a request that reloads
+     * the course in between cannot keep the old members cached.
+     */
+    public void invalidate(Long courseId) {
+        cache.invalidate(courseId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidate(courseId);
+                }
+            });
+        }
+    }
+
+    private CourseMembership load(Long courseId) {
+        CourseTeacher course = courseRepository.findTeacherByCourseId(courseId).orElse(null);
+        if (course == null) {
+            return null;
+        }
+        Set<String> studentIds = Set.copyOf(
+                courseEnrollmentRepository.findStudentIdsByCourseIdAndStatus(courseId, EnrollmentStatus.ACCEPTED));
+        return new CourseMembership(courseId, course.getTeacherId(), studentIds);
+    }
+}
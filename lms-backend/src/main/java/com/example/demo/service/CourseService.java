@@ -9,7 +9,12 @@ import com.example.demo.dto.response.courseDTO.ResponseDetailCourseDTO;
 import com.example.demo.dto.response.ResultPaginationDTO;
 import com.example.demo.repository.CourseEnrollmentRepository;
 import com.example.demo.repository.CourseRepository;
+import com.example.demo.repository.DocumentRepository;
+import com.example.demo.repository.SubmissionIntakeRepository;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.repository.projection.CourseListCounts;
+import com.example.demo.repository.projection.CourseStats;
+import com.example.demo.repository.projection.UserIdentity;
 import jakarta.persistence.criteria.Join;
 import jakarta.persistence.criteria.JoinType;
 import jakarta.persistence.criteria.Predicate;
@@ -18,9 +23,11 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.DoubleSummaryStatistics;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @RequiredArgsConstructor
@@ -29,6 +36,13 @@ public class CourseService {
     private final CourseRepository courseRepository;
     private final UserRepository userRepository;
     private final CourseEnrollmentRepository courseEnrollmentRepository;
+    private final StudentProgressService studentProgressService;
+    private final DocumentRepository documentRepository;
+    private final StoredObjectService storedObjectService;
+    private final DocumentFileCache documentFileCache;
+    private final UserIdentityCache userIdentityCache;
+    private final CourseMembershipService courseMembershipService;
+    private final SubmissionIntakeRepository submissionIntakeRepository;
 
     public Course createCourse(CourseDTO courseDTO) {
         Course course = new Course();
@@ -48,7 +62,7 @@ public class CourseService {
     }
 
     public ResultPaginationDTO getCourses(Pageable pageable, String nameCourse, String teacherName, String courseCode, String userMail) {
-        User user = userRepository.findByEmail(userMail).orElse(null);
+        UserIdentity user = userIdentityCache.findActive(userMail).orElse(null);
         Specification<Course> spec = (root, query, cb) -> {
             Predicate predicate = cb.conjunction();
 
@@ -63,27 +77,44 @@ public class CourseService {
             }
 
             // Student thì lấy course đã đăng ký và được ACCEPTED
-            if (user.getRole() == Role.STUDENT) {
+            if (user.role() == Role.STUDENT) {
                 Join<Course, CourseEnrollment> joinEnroll =
                         root.join("enrollments", JoinType.INNER);
                 predicate = cb.and(predicate,
-                        cb.equal(joinEnroll.get("student").get("userId"), user.getUserId()));
+                        cb.equal(joinEnroll.get("student").get("userId"), user.userId()));
                 predicate = cb.and(predicate,
                         cb.equal(joinEnroll.get("status"), EnrollmentStatus.ACCEPTED));
             }
 
             // FIX: Teacher thì filter theo userId thay vì name
-            if (user.getRole() == Role.TEACHER) {
+            if (user.role() == Role.TEACHER) {
                 predicate = cb.and(predicate,
-                        cb.equal(root.get("teacher").get("userId"), user.getUserId()));
+                        cb.equal(root.get("teacher").get("userId"), user.userId()));
+            }
+
+            // load the teacher with the page itself, but not in the count query
+            if (query.getResultType() != Long.class && query.getResultType() != long.class) {
+                root.fetch("teacher", JoinType.LEFT);
             }
 
             return predicate;
         };
 
         Page<Course> page = courseRepository.findAll(spec, pageable);
+        Map<Long, CourseListCounts> counts = new HashMap<>();
+        if (page.hasContent()) {
+            List<Long> courseIds = page.getContent().stream().map(Course::getId).toList();
+            for (CourseListCounts count : courseRepository.countsByCourseIds(courseIds, EnrollmentStatus.ACCEPTED)) {
+                counts.put(count.getCourseId(), count);
+            }
+        }
         List<ResponseCourseDTO> result = page.getContent().stream()
-                .map(ResponseCourseDTO::fromCourse)
+                .map(course -> {
+                    CourseListCounts count = counts.get(course.getId());
+                    return count == null
+                            ? ResponseCourseDTO.fromCourse(course, 0, 0)
+                            : ResponseCourseDTO.fromCourse(course, toInt(count.getStudentCount()), toInt(count.getAssignmentCount()));
+                })
                 .collect(Collectors.toList());
 
         ResultPaginationDTO resultPaginationDTO = new ResultPaginationDTO();
@@ -99,31 +130,33 @@ public class CourseService {
     }
 
     public ResponseDetailCourseDTO getCoursesDetail(Long courseId, String userMail) {
-        User user = userRepository.findByEmail(userMail).orElse(null);
-        Course course = courseRepository.findById(courseId).orElse(null);
-        if (course == null) {
+        UserIdentity user = userIdentityCache.findActive(userMail).orElse(null);
+        CourseMembership membership = courseMembershipService.find(courseId).orElse(null);
+        if (membership == null) {
             throw new RuntimeException("Course not found");
         }
 
         // Student thì kiểm tra đã đăng ký khóa học chưa
-        if (user.getRole() == Role.STUDENT) {
-            boolean isEnrolled = course.getEnrollments().stream()
-                    .filter(enrollment -> enrollment.getStatus() == EnrollmentStatus.ACCEPTED)
-                    .map(CourseEnrollment::getStudent)
-                    .anyMatch(student -> student.getUserId().equals(user.getUserId()));
-            if (!isEnrolled) {
+        if (user.role() == Role.STUDENT) {
+            if (!membership.isAcceptedStudent(user.userId())) {
                 throw new RuntimeException("You are not enrolled in this course");
             }
         }
 
         // FIX: Teacher thì kiểm tra theo userId thay vì name
-        if (user.getRole() == Role.TEACHER) {
-            if (!course.getTeacher().getUserId().equals(user.getUserId())) {
+        if (user.role() == Role.TEACHER) {
+            if (!membership.isTeacher(user.userId())) {
                 throw new RuntimeException("You are not teacher of this course");
             }
         }
 
-        int totalAssignments = 0;
+        Course course = courseRepository.findById(courseId).orElse(null);
+        if (course == null) {
+            throw new RuntimeException("Course not found");
+        }
+
+        CourseStats stats = courseRepository.statsByCourseId(courseId, EnrollmentStatus.ACCEPTED);
+        int totalAssignments = toInt(stats.getAssignmentCount());
         int submittedAssignments = 0;
         int documentsCount = 0;
         int studentsCount = 0;
@@ -131,60 +164,55 @@ public class CourseService {
         int discussionsCount = 0;
         int submissionRate = 0;
 
-        if (user.getRole() == Role.STUDENT) {
-            totalAssignments = course.getAssignments() != null ? course.getAssignments().size() : 0;
-            List<Submission> submissions = course.getAssignments().stream()
-                    .flatMap(a -> a.getSubmissions().stream())
-                    .filter(s -> s.getStudent().getUserId().equals(user.getUserId()))
-                    .toList();
-            submittedAssignments = submissions.size();
-            discussionsCount = course.getDiscussions() != null ? course.getDiscussions().size() : 0;
-            studentsCount = course.getEnrollments() != null
-                    ? (int) course.getEnrollments().stream().filter(o -> o.getStatus() == EnrollmentStatus.ACCEPTED).count()
-                    : 0;
-            averageGrade = submissions.stream()
-                    .mapToDouble(Submission::getGrade)
-                    .average()
-                    .orElse(0.0);
+        if (user.role() == Role.STUDENT) {
+            StudentCourseProgress progress = studentProgressService.getSnapshot(user.userId(), courseId);
+            totalAssignments = progress.getAssignmentCount();
+            submittedAssignments = progress.getSubmittedCount();
+            discussionsCount = toInt(stats.getDiscussionCount());
+            studentsCount = toInt(stats.getAcceptedStudentCount());
+            averageGrade = progress.getAverageGrade() != null ? progress.getAverageGrade() : 0.0;
         }
 
-        if (user.getRole() == Role.TEACHER) {
-            totalAssignments = course.getAssignments() != null ? course.getAssignments().size() : 0;
-            documentsCount = course.getEnrollments() != null ? course.getEnrollments().size() : 0;
-            studentsCount = course.getEnrollments() != null
-                    ? (int) course.getEnrollments().stream().filter(o -> o.getStatus() == EnrollmentStatus.ACCEPTED).count()
-                    : 0;
-            if (totalAssignments == 0) {
-                averageGrade = 0;
-            } else {
-                DoubleSummaryStatistics stats = course.getAssignments().stream()
-                        .flatMap(a -> a.getSubmissions().stream())
-                        .mapToDouble(Submission::getGrade)
-                        .summaryStatistics();
-                averageGrade = stats.getAverage();
-                int totalSubmissions = (int) course.getAssignments().stream()
-                        .flatMap(a -> a.getSubmissions().stream())
-                        .count();
+        if (user.role() == Role.TEACHER) {
+            documentsCount = toInt(stats.getDocumentCount());
+            studentsCount = toInt(stats.getAcceptedStudentCount());
+            if (totalAssignments > 0) {
+                averageGrade = stats.getAverageGrade() != null ? stats.getAverageGrade() : 0.0;
+                int totalSubmissions = toInt(stats.getSubmissionCount());
                 submissionRate = studentsCount == 0 ? 0
                         : (int) ((double) totalSubmissions / (studentsCount * totalAssignments) * 100);
             }
         }
 
-        if (user.getRole() == Role.ADMIN) {
-            totalAssignments = course.getAssignments() != null ? course.getAssignments().size() : 0;
-            documentsCount = course.getEnrollments() != null ? course.getEnrollments().size() : 0;
-            discussionsCount = course.getDiscussions() != null ? course.getDiscussions().size() : 0;
+        if (user.role() == Role.ADMIN) {
+            documentsCount = toInt(stats.getDocumentCount());
+            discussionsCount = toInt(stats.getDiscussionCount());
         }
 
-        return ResponseDetailCourseDTO.fromCourse(course, totalAssignments, submittedAssignments, documentsCount, studentsCount, averageGrade, discussionsCount, submissionRate);
+        List<User> students = courseEnrollmentRepository.findStudentsByCourseIdAndStatus(courseId, EnrollmentStatus.ACCEPTED);
+        return ResponseDetailCourseDTO.fromCourse(course, students, totalAssignments, submittedAssignments, documentsCount, studentsCount, averageGrade, discussionsCount, submissionRate);
     }
 
+    private static int toInt(Long value) {
+        return value == null ? 0 : value.intValue();
+    }
+
+    @Transactional
     public void deleteCourse(Long courseId) {
         Course course = courseRepository.findById(courseId).orElse(null);
         if (course == null) {
             throw new RuntimeException("Course not found");
         }
+        studentProgressService.onCourseDeleted(courseId);
+        // bài nộp còn chờ chấm của khóa học bị xóa theo cascade, bỏ luôn khỏi hàng đợi
+        submissionIntakeRepository.deleteByCourseId(courseId);
+        // tài liệu bị xóa theo cascade; object S3 không còn được tham chiếu đưa vào hàng đợi xóa
+        List<String> deletedKeys = storedObjectService.release(documentRepository.findFileUrlsByCourseId(courseId).stream()
+                .map(fileUrl -> "documents/" + fileUrl)
+                .toList());
         courseRepository.delete(course);
+        deletedKeys.forEach(documentFileCache::invalidate);
+        courseMembershipService.invalidate(courseId);
     }
 
     public Course updateCourse(Long courseId, CourseDTO courseDTO) {
@@ -204,6 +232,9 @@ public class CourseService {
             throw new RuntimeException("User is not a teacher");
         }
         course.setTeacher(user);
-        return courseRepository.save(course);
+        Course saved = courseRepository.save(course);
+        // giáo viên có thể đã thay đổi
+        courseMembershipService.invalidate(courseId);
+        return saved;
     }
 }
\ No newline at end of file
@@ -0,0 +1,269 @@
+package com.example.demo.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Cache of S3 objects on local disk, keyed by S3 key plus ETag so a replaced object is never
+ * served stale. Total size is bounded by {@code lms.document-cache.max-size} with LRU eviction.
+ * <p>
+ * A miss starts one copy of the object to disk on one of {@code lms.document-cache.fill-threads}
+ * background threads; every miss of that key meanwhile shares it, so a burst of N concurrent
+ * misses costs one S3 GET. Waiting holds no thread (the result is a future) and is bounded by
+ * {@code lms.document-cache.fill-wait}: past it, or when the fill queue is full, the caller
+ * streams its request from S3 itself. Objects too large to cache are remembered for
+ * {@code lms.document-cache.uncacheable-ttl}, in a bounded Caffeine cache. The index lives in
+ * memory only, so the directory is emptied at startup.
+ */
+@Slf4j
+@Component
+public class DocumentFileCache {
+    private final S3Client s3Client;
+    private final String bucketName;
+    private final boolean enabled;
+    private final Path directory;
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final Duration fillWait;
+    private final ThreadPoolExecutor fillExecutor;
+
+    // accessOrder = true: iteration starts at the least recently used entry
+    private final LinkedHashMap<String, CachedFile> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+    private final Map<String, CompletableFuture<Optional<CachedFile>>> filling = new ConcurrentHashMap<>();
+    private final Cache<String, Boolean> uncacheable;
+
+    public record CachedFile(Path path, long size, String contentType) {
+    }
+
+    public DocumentFileCache(S3Client s3Client,
+                             @Value("${aws.s3.bucket}") String bucketName,
+                             @Value("${lms.document-cache.enabled:false}") boolean enabled,
+                             @Value("${lms.document-cache.directory:${java.io.tmpdir}/lms-document-cache}") String directory,
+                             @Value("${lms.document-cache.max-size:10GB}") DataSize maxSize,
+                             @Value("${lms.document-cache.max-file-size:500MB}") DataSize maxFileSize,
+                             @Value("${lms.document-cache.fill-threads:2}") int fillThreads,
+                             @Value("${lms.document-cache.fill-queue-capacity:16}") int fillQueueCapacity,
+                             @Value("${lms.document-cache.fill-wait:2s}") Duration fillWait,
+                             @Value("${lms.document-cache.uncacheable-size:10000}") long uncacheableSize,
+                             @Value("${lms.document-cache.uncacheable-ttl:1h}") Duration uncacheableTtl) {
+        this.s3Client = s3Client;
+        this.bucketName = bucketName;
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.maxBytes = maxSize.toBytes();
+        this.maxEntryBytes = maxFileSize.toBytes();
+        this.fillWait = fillWait;
+        this.uncacheable = Caffeine.newBuilder()
+                .maximumSize(uncacheableSize)
+                .expireAfterWrite(uncacheableTtl)
+                .build();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.fillExecutor = new ThreadPoolExecutor(fillThreads, fillThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(fillQueueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "document-cache-fill-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PostConstruct
+    void prepareDirectory() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(directory);
+        try (Stream<Path> leftovers = Files.list(directory)) {
+            leftovers.forEach(DocumentFileCache::deleteQuietly);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        fillExecutor.shutdownNow();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the cached copy of {@code key} at {@code eTag}, once the fill started by this or a
+     * concurrent miss is done; empty if the object cannot be cached or the fill takes longer than
+     * {@code lms.document-cache.fill-wait}, in which case the caller streams from S3 itself.
+     * Never blocks.
+     */
+    public CompletableFuture<Optional<CachedFile>> get(String key, String eTag) {
+        String cacheKey = key + "@" + eTag;
+        CachedFile cached = lookup(cacheKey);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(Optional.of(cached));
+        }
+        if (uncacheable.getIfPresent(cacheKey) != null) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        CompletableFuture<Optional<CachedFile>> fill = new CompletableFuture<>();
+        CompletableFuture<Optional<CachedFile>> inProgress = filling.putIfAbsent(cacheKey, fill);
+        if (inProgress == null) {
+            inProgress = fill;
+            try {
+                fillExecutor.execute(() -> fill(cacheKey, key, eTag, fill));
+            } catch (RejectedExecutionException e) {
+                // hàng đợi đầy: lần miss sau thử lại
+                filling.remove(cacheKey, fill);
+                fill.complete(Optional.empty());
+            }
+        }
+        // copy(): hết giờ chờ của một request không được hoàn thành future dùng chung
+        return inProgress.copy().completeOnTimeout(Optional.empty(), fillWait.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Drops every cached version of {@code key}.
+     */
+    public void invalidate(String key) {
+        String prefix = key + "@";
+        synchronized (this) {
+            Iterator<Map.Entry<String, CachedFile>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, CachedFile> entry = it.next();
+                if (entry.getKey().startsWith(prefix)) {
+                    it.remove();
+                    totalBytes -= entry.getValue().size();
+                    deleteQuietly(entry.getValue().path());
+                }
+            }
+        }
+        uncacheable.asMap().keySet().removeIf(cacheKey -> cacheKey.startsWith(prefix));
+    }
+
+    private synchronized CachedFile lookup(String cacheKey) {
+        return entries.get(cacheKey);
+    }
+
+    private void fill(String cacheKey, String key, String eTag, CompletableFuture<Optional<CachedFile>> result) {
+        CachedFile loaded = null;
+        try {
+            // another fill may have finished just before this one was queued
+            loaded = lookup(cacheKey);
+            if (loaded == null) {
+                loaded = load(cacheKey, key, eTag);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not cache {}, it keeps being served from S3", key, e);
+        } finally {
+            filling.remove(cacheKey, result);
+            result.complete(Optional.ofNullable(loaded));
+        }
+    }
+
+    /**
+     * @return the stored copy, or null if the object is too large to cache
+     */
+    private CachedFile load(String cacheKey, String key, String eTag) {
+        // ifMatch: never store content under an ETag it does not have
+        ResponseInputStream<GetObjectResponse> object = s3Client.getObject(
+                GetObjectRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .ifMatch(eTag)
+                        .build()
+        );
+        Long length = object.response().contentLength();
+        if (length == null || length > maxEntryBytes || length > maxBytes) {
+            object.abort();
+            uncacheable.put(cacheKey, Boolean.TRUE);
+            return null;
+        }
+
+        String fileName = fileNameOf(cacheKey) + "-" + UUID.randomUUID();
+        Path partFile = directory.resolve(fileName + ".part");
+        Path target = directory.resolve(fileName);
+        try {
+            try (object; OutputStream out = Files.newOutputStream(partFile)) {
+                object.transferTo(out);
+            }
+            Files.move(partFile, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            deleteQuietly(partFile);
+            throw new UncheckedIOException(e);
+        }
+        CachedFile file = new CachedFile(target, length, object.response().contentType());
+        put(cacheKey, file);
+        return file;
+    }
+
+    private synchronized void put(String cacheKey, CachedFile file) {
+        CachedFile previous = entries.put(cacheKey, file);
+        if (previous != null) {
+            totalBytes -= previous.size();
+            deleteQuietly(previous.path());
+        }
+        totalBytes += file.size();
+        Iterator<Map.Entry<String, CachedFile>> it = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, CachedFile> eldest = it.next();
+            if (eldest.getKey().equals(cacheKey)) {
+                continue;
+            }
+            // readers that already opened the file keep their handle after the delete
+            it.remove();
+            totalBytes -= eldest.getValue().size();
+            deleteQuietly(eldest.getValue().path());
+        }
+    }
+
+    private static String fileNameOf(String cacheKey) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(cacheKey.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete cached file {}", path, e);
+        }
+    }
+}
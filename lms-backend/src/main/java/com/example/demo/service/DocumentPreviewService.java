@@ -0,0 +1,262 @@
+package com.example.demo.service;
+
+import com.example.demo.domain.Document;
+import com.example.demo.repository.DocumentRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renders a small JPEG preview of uploaded images and of the first page of PDFs, stored next to
+ * the original as {@code <folder>/previews/<name>.jpg}. Rendering runs on a bounded pool after the
+ * upload; when the pool is full the preview is skipped, it is only a convenience. Documents sharing
+ * the same content-addressed object share its preview.
+ */
+@Slf4j
+@Service
+public class DocumentPreviewService {
+    public static final String PREVIEW_FOLDER = "previews/";
+    public static final String PREVIEW_SUFFIX = ".jpg";
+    private static final Set<String> IMAGE_EXTENSIONS = Set.of("jpg", "jpeg", "png", "gif", "bmp");
+
+    private final S3Client s3Client;
+    private final DocumentRepository documentRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor executor;
+    private final String bucketName;
+    private final boolean enabled;
+    private final int maxWidth;
+    private final long maxSourceBytes;
+    private final long maxSourcePixels;
+
+    public DocumentPreviewService(S3Client s3Client,
+                                  DocumentRepository documentRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${aws.s3.bucket}") String bucketName,
+                                  @Value("${lms.document-preview.enabled:true}") boolean enabled,
+                                  @Value("${lms.document-preview.workers:2}") int workers,
+                                  @Value("${lms.document-preview.queue-capacity:100}") int queueCapacity,
+                                  @Value("${lms.document-preview.max-width:320}") int maxWidth,
+                                  @Value("${lms.document-preview.max-source-size:50MB}") DataSize maxSourceSize,
+                                  @Value("${lms.document-preview.max-source-pixels:100000000}") long maxSourcePixels) {
+        this.s3Client = s3Client;
+        this.documentRepository = documentRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.bucketName = bucketName;
+        this.enabled = enabled;
+        this.maxWidth = maxWidth;
+        this.maxSourceBytes = maxSourceSize.toBytes();
+        this.maxSourcePixels = maxSourcePixels;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "document-preview-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * {@code documents/a.pdf} -> {@code documents/previews/a.pdf.jpg}
+     */
+    public static String previewKeyOf(String objectKey) {
+        int slash = objectKey.lastIndexOf('/');
+        return objectKey.substring(0, slash + 1) + PREVIEW_FOLDER + objectKey.substring(slash + 1) + PREVIEW_SUFFIX;
+    }
+
+    /**
+     * Inverse of {@link #previewKeyOf}, or null if {@code key} is not a preview.
+     */
+    public static String sourceKeyOf(String key) {
+        int folder = key.lastIndexOf("/" + PREVIEW_FOLDER);
+        if (folder < 0 || !key.endsWith(PREVIEW_SUFFIX)) {
+            return null;
+        }
+        return key.substring(0, folder + 1)
+                + key.substring(folder + 1 + PREVIEW_FOLDER.length(), key.length() - PREVIEW_SUFFIX.length());
+    }
+
+    /**
+     * Queues the preview of a saved document. Does nothing for types without a renderer or files
+     * above {@code lms.document-preview.max-source-size}.
+     */
+    public void schedule(Document document) {
+        String extension = document.getFileExtension() == null ? "" : document.getFileExtension().toLowerCase(Locale.ROOT);
+        boolean pdf = extension.equals("pdf");
+        if (!enabled || !(pdf || IMAGE_EXTENSIONS.contains(extension))
+                || document.getFileSize() == null || document.getFileSize() > maxSourceBytes) {
+            return;
+        }
+        String fileUrl = document.getFileUrl();
+        try {
+            executor.execute(() -> generate(fileUrl, pdf));
+        } catch (RejectedExecutionException e) {
+            log.warn("Preview queue full, skipping preview of {}", fileUrl);
+        }
+    }
+
+    private void generate(String fileUrl, boolean pdf) {
+        String sourceKey = "documents/" + fileUrl;
+        String previewKey = previewKeyOf(sourceKey);
+        try {
+            if (!exists(previewKey)) {
+                byte[] preview = render(sourceKey, pdf);
+                if (preview == null) {
+                    return;
+                }
+                s3Client.putObject(
+                        PutObjectRequest.builder()
+                                .bucket(bucketName)
+                                .key(previewKey)
+                                .contentType("image/jpeg")
+                                .contentLength((long) preview.length)
+                                .build(),
+                        RequestBody.fromBytes(preview)
+                );
+            }
+            transactionTemplate.executeWithoutResult(status -> documentRepository.setPreviewKey(fileUrl, previewKey));
+        } catch (Exception e) {
+            log.warn("Could not render preview of {}", sourceKey, e);
+        }
+    }
+
+    private boolean exists(String key) {
+        try {
+            s3Client.headObject(builder -> builder.bucket(bucketName).key(key));
+            return true;
+        } catch (software.amazon.awssdk.services.s3.model.NoSuchKeyException e) {
+            return false;
+        }
+    }
+
+    private byte[] render(String sourceKey, boolean pdf) throws IOException {
+        Path source = Files.createTempFile("lms-preview-", null);
+        try {
+            try (ResponseInputStream<GetObjectResponse> object = s3Client.getObject(
+                    GetObjectRequest.builder().bucket(bucketName).key(sourceKey).build())) {
+                Files.copy(object, source, StandardCopyOption.REPLACE_EXISTING);
+            }
+            BufferedImage image = pdf ? renderFirstPage(source) : readImage(source);
+            return image == null ? null : toJpeg(scale(image));
+        } finally {
+            Files.deleteIfExists(source);
+        }
+    }
+
+    private BufferedImage renderFirstPage(Path source) throws IOException {
+        try (PDDocument document = Loader.loadPDF(source.toFile())) {
+            if (document.getNumberOfPages() == 0) {
+                return null;
+            }
+            PDRectangle box = document.getPage(0).getCropBox();
+            // render straight at preview size instead of at 72 dpi and scaling down
+            float scale = Math.min(1f, maxWidth / box.getWidth());
+            return new PDFRenderer(document).renderImage(0, scale, ImageType.RGB);
+        }
+    }
+
+    private BufferedImage readImage(Path source) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxSourcePixels) {
+                    log.info("Image too large to preview: {}x{}", width, height);
+                    return null;
+                }
+                // decode every n-th pixel only, the result is scaled down anyway
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, width / (maxWidth * 2));
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage scale(BufferedImage image) {
+        int width = Math.min(maxWidth, image.getWidth());
+        int height = Math.max(1, (int) Math.round((double) image.getHeight() * width / image.getWidth()));
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            // JPEG has no alpha: transparent areas become white
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    private static byte[] toJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(bytes)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(0.8f);
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+}
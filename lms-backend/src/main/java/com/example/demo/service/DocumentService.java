@@ -3,40 +3,70 @@ package com.example.demo.service;
 import com.example.demo.domain.Course;
 import com.example.demo.domain.Document;
 import com.example.demo.domain.User;
-import com.example.demo.repository.CourseEnrollmentRepository;
+import com.example.demo.dto.request.document.FinalizeDocumentUploadDTO;
+import com.example.demo.dto.request.document.PresignDocumentUploadDTO;
+import com.example.demo.dto.response.documentDTO.ResponsePresignedUploadDTO;
 import com.example.demo.repository.CourseRepository;
 import com.example.demo.repository.DocumentRepository;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.repository.projection.UserIdentity;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
 
 import java.io.IOException;
+import java.net.URL;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @RequiredArgsConstructor
 public class DocumentService {
     final private UploadFileService uploadFileService;
+    final private DocumentFileCache documentFileCache;
     final private CourseRepository courseRepository;
     final private DocumentRepository documentRepository;
     final private UserRepository userRepository;
-    final private CourseEnrollmentRepository courseEnrollmentRepository;
+    final private StoredObjectService storedObjectService;
+    final private DocumentPreviewService documentPreviewService;
+    final private UserIdentityCache userIdentityCache;
+    final private CourseMembershipService courseMembershipService;
+
+    @Value("${aws.s3.presign-max-upload-size:2GB}")
+    private DataSize maxDirectUploadSize;
 
     public void uploadDocumentToCourse(MultipartFile file, String userMail, Long courseId, String title) {
-        User user = userRepository.findByEmail(userMail).orElseThrow(() -> new RuntimeException("User not found"));
-        Course course = courseRepository.findById(courseId).orElseThrow(() -> new RuntimeException("Course not found"));
-        if (!course.getTeacher().getEmail().equals(userMail)) {
-            throw new RuntimeException("User not in course");
+        UserIdentity user = userIdentityCache.findActive(userMail).orElseThrow(() -> new RuntimeException("User not found"));
+        checkTeacher(user, courseId);
+        UploadFileService.UploadedFile uploaded;
+        try {
+            // file trùng nội dung được lưu một lần, chỉ tăng số tham chiếu
+            uploaded = storedObjectService.store(file, "documents");
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Upload file failed", e);
         }
         try {
-            String key = uploadFileService.uploadFile(file, "documents");
             Document document = new Document();
             document.setTitle(title);
-            document.setUploader(user);
-            document.setCourse(course);
-            document.setFileUrl(key);
+            document.setUploader(userRepository.getReferenceById(user.userId()));
+            document.setCourse(courseRepository.getReferenceById(courseId));
+            document.setFileUrl(uploaded.filename());
+            document.setEtag(uploaded.eTag());
 
             // Set file type and extension
             document.setFileType(file.getContentType());
@@ -50,105 +80,194 @@ public class DocumentService {
             document.setFileSize(file.getSize());
 
             documentRepository.save(document);
+            documentPreviewService.schedule(document);
+        } catch (RuntimeException e) {
+            storedObjectService.release(List.of("documents/" + uploaded.filename()));
+            throw e;
+        }
+    }
 
-        } catch (IOException e) {
-            e.printStackTrace();
-            // Xử lý lỗi: thông báo, log, hoặc ném RuntimeException
-            throw new RuntimeException("Upload file failed", e);
+    public CompletableFuture<FileDownload> downloadFile(Long id, String userMail, HttpHeaders requestHeaders) {
+        UserIdentity user = userIdentityCache.findActive(userMail).orElseThrow(() -> new RuntimeException("User not found"));
+        Document document = documentRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Document not found"));
+
+        checkReadAccess(user, document.getCourse().getId());
+        Instant lastModified = document.getUpdatedAt() == null ? null
+                : document.getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant();
+        return uploadFileService.downloadFile("documents", document.getFileUrl(), requestHeaders,
+                        document.getEtag(), lastModified)
+                .exceptionally(e -> {
+                    throw new RuntimeException("Download file failed", e);
+                });
+    }
+
+    /**
+     * Small JPEG preview of the document, 404 while it is not rendered (or for unsupported types).
+     * Previews belong to content-addressed objects and never change, so clients may cache them.
+     */
+    public CompletableFuture<FileDownload> downloadPreview(Long id, String userMail, HttpHeaders requestHeaders) {
+        UserIdentity user = userIdentityCache.findActive(userMail).orElseThrow(() -> new RuntimeException("User not found"));
+        Document document = documentRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Document not found"));
+        checkReadAccess(user, document.getCourse().getId());
+        if (document.getPreviewKey() == null) {
+            return CompletableFuture.completedFuture(FileDownload.of(ResponseEntity.notFound().build()));
         }
+        String previewKey = document.getPreviewKey();
+        int slash = previewKey.lastIndexOf('/');
+        return uploadFileService.downloadFile(previewKey.substring(0, slash), previewKey.substring(slash + 1),
+                        requestHeaders, null, null)
+                .thenApply(download -> {
+                    download.headers().setCacheControl(CacheControl.maxAge(Duration.ofDays(1)).cachePrivate());
+                    return download;
+                });
     }
 
-    public ResponseEntity<byte[]> downloadFile(Long id, String userMail) {
-        User user = userRepository.findByEmail(userMail).orElseThrow(() -> new RuntimeException("User not found"));
+    /**
+     * Short-lived presigned GET for the document, after the same access check as {@link #downloadFile}.
+     */
+    public URL getDownloadUrl(Long id, String userMail) {
+        UserIdentity user = userIdentityCache.findActive(userMail).orElseThrow(() -> new RuntimeException("User not found"));
         Document document = documentRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Document not found"));
+        checkReadAccess(user, document.getCourse().getId());
+        return uploadFileService.presignDownload("documents", document.getFileUrl(), downloadName(document));
+    }
 
-        switch (user.getRole()) {
-            case STUDENT:
-                boolean isEnrolled = courseEnrollmentRepository.existsByStudentAndCourseAndStatus(user,
-                        document.getCourse(), com.example.demo.domain.enumeration.EnrollmentStatus.ACCEPTED);
-                if (!isEnrolled) {
-                    throw new RuntimeException("User not enrolled in course");
-                }
-                break;
-            case TEACHER:
-                if (!document.getCourse().getTeacher().getEmail().equals(userMail)) {
-                    throw new RuntimeException("User not in course");
-                }
-                break;
-            default:
-                throw new RuntimeException("Invalid user role");
+    /**
+     * Tên file người dùng nhận được: tiêu đề tài liệu + phần mở rộng gốc (key trong S3 chỉ là hash).
+     */
+    private static String downloadName(Document document) {
+        String extension = document.getFileExtension();
+        if (extension == null || extension.isBlank()
+                || document.getTitle().toLowerCase(Locale.ROOT).endsWith("." + extension.toLowerCase(Locale.ROOT))) {
+            return document.getTitle();
         }
-        try {
-            ResponseEntity<byte[]> file = uploadFileService.downloadFile("documents", document.getFileUrl());
-            return file;
-        } catch (Exception e) {
-            e.printStackTrace();
-            throw new RuntimeException("Download file failed", e);
+        return document.getTitle() + "." + extension;
+    }
+
+    /**
+     * First step of a direct upload: the teacher's browser PUTs the file to the returned URL,
+     * then calls {@link #finalizeUpload}. Keys are prefixed with the course id so that
+     * finalize can only attach objects issued for this course.
+     */
+    public ResponsePresignedUploadDTO presignUpload(Long courseId, String userMail, PresignDocumentUploadDTO dto) {
+        UserIdentity user = userIdentityCache.findActive(userMail).orElseThrow(() -> new RuntimeException("User not found"));
+        checkTeacher(user, courseId);
+        if (dto.getFileSize() > maxDirectUploadSize.toBytes()) {
+            throw new RuntimeException("File too large");
         }
+        String fileKey = directUploadPrefix(courseId) + uploadFileService.uniqueFilename(dto.getFileName());
+        PresignedPutObjectRequest presigned = uploadFileService.presignUpload("documents", fileKey,
+                dto.getContentType(), dto.getFileSize());
+
+        Map<String, String> headers = new HashMap<>();
+        presigned.signedHeaders().forEach((name, values) -> {
+            if (!name.equalsIgnoreCase("host")) {
+                headers.put(name, String.join(",", values));
+            }
+        });
+        return new ResponsePresignedUploadDTO(fileKey, presigned.url().toString(), "PUT", headers, presigned.expiration());
     }
 
-    public List<Document> getAllDocumentsOfCourse(Long courseId, String userMail) {
+    /**
+     * Records the {@link Document} of a direct upload once the object is really in S3; size,
+     * type and ETag come from S3, not from the client.
+     */
+    public Document finalizeUpload(Long courseId, String userMail, FinalizeDocumentUploadDTO dto) {
+        // Document trả về cho client nên cần entity đầy đủ của uploader
         User user = userRepository.findByEmail(userMail).orElseThrow(() -> new RuntimeException("User not found"));
         Course course = courseRepository.findById(courseId).orElseThrow(() -> new RuntimeException("Course not found"));
-        switch (user.getRole()) {
+        if (!courseMembershipService.isTeacher(courseId, user.getUserId())) {
+            throw new RuntimeException("User not in course");
+        }
+        String fileKey = dto.getFileKey();
+        if (!fileKey.startsWith(directUploadPrefix(courseId)) || fileKey.contains("/")) {
+            throw new RuntimeException("Invalid file key");
+        }
+        if (documentRepository.existsByFileUrl(fileKey)) {
+            throw new RuntimeException("Document already exists");
+        }
+        HeadObjectResponse head = uploadFileService.headObject("documents", fileKey)
+                .orElseThrow(() -> new RuntimeException("File has not been uploaded"));
+
+        Document document = new Document();
+        document.setTitle(dto.getTitle());
+        document.setUploader(user);
+        document.setCourse(course);
+        document.setFileUrl(fileKey);
+        document.setEtag(head.eTag());
+        document.setFileType(head.contentType());
+        String filename = dto.getFileName() != null ? dto.getFileName() : fileKey;
+        if (filename.contains(".")) {
+            document.setFileExtension(filename.substring(filename.lastIndexOf(".") + 1));
+        }
+        document.setFileSize(head.contentLength());
+        Document saved = documentRepository.save(document);
+        documentPreviewService.schedule(saved);
+        return saved;
+    }
+
+    private static String directUploadPrefix(Long courseId) {
+        return "c" + courseId + "_";
+    }
+
+    private void checkTeacher(UserIdentity user, Long courseId) {
+        CourseMembership membership = courseMembershipService.find(courseId)
+                .orElseThrow(() -> new RuntimeException("Course not found"));
+        if (!membership.isTeacher(user.userId())) {
+            throw new RuntimeException("User not in course");
+        }
+    }
+
+    private void checkReadAccess(UserIdentity user, Long courseId) {
+        CourseMembership membership = courseMembershipService.find(courseId)
+                .orElseThrow(() -> new RuntimeException("Course not found"));
+        switch (user.role()) {
             case STUDENT:
-                boolean isEnrolled = courseEnrollmentRepository.existsByStudentAndCourseAndStatus(user, course,
-                        com.example.demo.domain.enumeration.EnrollmentStatus.ACCEPTED);
-                if (!isEnrolled) {
+                if (!membership.isAcceptedStudent(user.userId())) {
                     throw new RuntimeException("User not enrolled in course");
                 }
                 break;
             case TEACHER:
-                if (!course.getTeacher().getEmail().equals(userMail)) {
+                if (!membership.isTeacher(user.userId())) {
                     throw new RuntimeException("User not in course");
                 }
                 break;
             default:
                 throw new RuntimeException("Invalid user role");
         }
-        List<Document> documents = documentRepository.findAllByCourse(course);
+    }
+
+    public List<Document> getAllDocumentsOfCourse(Long courseId, String userMail) {
+        UserIdentity user = userIdentityCache.findActive(userMail).orElseThrow(() -> new RuntimeException("User not found"));
+        checkReadAccess(user, courseId);
+        List<Document> documents = documentRepository.findAllByCourseId(courseId);
         return documents;
 
     }
 
     public Document getDocumentDetail(Long documentId, String userMail) {
-        User user = userRepository.findByEmail(userMail).orElseThrow(() -> new RuntimeException("User not found"));
+        UserIdentity user = userIdentityCache.findActive(userMail).orElseThrow(() -> new RuntimeException("User not found"));
         Document document = documentRepository.findById(documentId)
                 .orElseThrow(() -> new RuntimeException("Document not found"));
-        switch (user.getRole()) {
-            case STUDENT:
-                boolean isEnrolled = courseEnrollmentRepository.existsByStudentAndCourseAndStatus(user,
-                        document.getCourse(), com.example.demo.domain.enumeration.EnrollmentStatus.ACCEPTED);
-                if (!isEnrolled) {
-                    throw new RuntimeException("User not enrolled in course");
-                }
-                break;
-            case TEACHER:
-                if (!document.getCourse().getTeacher().getEmail().equals(userMail)) {
-                    throw new RuntimeException("User not in course");
-                }
-                break;
-            default:
-                throw new RuntimeException("Invalid user role");
-        }
+        checkReadAccess(user, document.getCourse().getId());
         return document;
     }
 
+    @Transactional
     public void deleteDocument(Long documentId, String userMail) {
-        User user = userRepository.findByEmail(userMail).orElseThrow(() -> new RuntimeException("User not found"));
+        UserIdentity user = userIdentityCache.findActive(userMail).orElseThrow(() -> new RuntimeException("User not found"));
         Document document = documentRepository.findById(documentId)
                 .orElseThrow(() -> new RuntimeException("Document not found"));
         if (!document.getUploader().getEmail().equals(userMail)) {
             throw new RuntimeException("User not uploader");
         }
-        try {
-            uploadFileService.deleteFile("documents", document.getFileUrl());
-            documentRepository.delete(document);
-        } catch (Exception e) {
-            e.printStackTrace();
-            throw new RuntimeException("Delete file failed", e);
-        }
+        // object S3 chỉ bị xóa (sau commit, bởi ObjectDeletionWorker) khi không còn tài liệu nào dùng
+        List<String> deletedKeys = storedObjectService.release(List.of("documents/" + document.getFileUrl()));
+        documentRepository.delete(document);
+        deletedKeys.forEach(documentFileCache::invalidate);
     }
 
 }
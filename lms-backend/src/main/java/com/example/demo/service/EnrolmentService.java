@@ -10,6 +10,7 @@ import com.example.demo.dto.response.userDTO.ResUserDTO;
 import com.example.demo.repository.CourseEnrollmentRepository;
 import com.example.demo.repository.CourseRepository;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.repository.projection.UserIdentity;
 import jakarta.persistence.criteria.Join;
 import jakarta.persistence.criteria.JoinType;
 import jakarta.persistence.criteria.Predicate;
@@ -18,6 +19,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -29,10 +31,14 @@ public class EnrolmentService {
     final private CourseRepository courseRepository;
     final private UserService userService;
     private final UserRepository userRepository;
+    private final StudentProgressService studentProgressService;
+    private final UserIdentityCache userIdentityCache;
+    private final CourseMembershipService courseMembershipService;
 
     public void enrollStudentInCourse(String user, String enrollmentCode) {
         Course course=courseRepository.findByCode(enrollmentCode).orElseThrow(()-> new RuntimeException("Course not found"));
-        User student=userRepository.findByEmail(user).orElseThrow(()-> new RuntimeException("Student not found"));
+        UserIdentity identity=userIdentityCache.findActive(user).orElseThrow(()-> new RuntimeException("Student not found"));
+        User student=userRepository.getReferenceById(identity.userId());
         CourseEnrollment courseEnrollment=courseEnrollmentRepository.findByStudentAndCourse(student,course).orElse(null);
         if(courseEnrollment!=null){
             throw new RuntimeException("Student already enrolled in this course");
@@ -43,6 +49,7 @@ public class EnrolmentService {
         enrollment.setStatus(com.example.demo.domain.enumeration.EnrollmentStatus.PENDING);
         courseEnrollmentRepository.save(enrollment);
     }
+    @Transactional
     public void enrollAnswer(String answer, Long enrollmentId) {
         CourseEnrollment enrollment=courseEnrollmentRepository.findById(enrollmentId).orElseThrow(()-> new RuntimeException("Enrollment not found"));
         if(enrollment.getStatus()!= com.example.demo.domain.enumeration.EnrollmentStatus.PENDING){
@@ -56,9 +63,10 @@ public class EnrolmentService {
         }
         enrollment.setStatus(com.example.demo.domain.enumeration.EnrollmentStatus.ACCEPTED);
         courseEnrollmentRepository.save(enrollment);
+        studentProgressService.onEnrollmentAccepted(enrollment.getStudent().getUserId(), enrollment.getCourse().getId());
+        courseMembershipService.invalidate(enrollment.getCourse().getId());
     }
     public ResultPaginationDTO getEnrolls(Pageable pageable,String courseName,String courseCode,String studentName,EnrollmentStatus status,String userMail) {
-        User user=userRepository.findByEmail(userMail).orElse(null);
         Specification<CourseEnrollment> spec = (root, query, cb) -> {
             Predicate predicate = cb.conjunction(); // bắt đầu với điều kiện luôn đúng
             //Nếu Có filter
@@ -0,0 +1,28 @@
+package com.example.demo.service;
+
+import org.reactivestreams.Publisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Answer of a download: status, headers and the body as a stream of buffers ({@code null} for
+ * 304/404/416). Controllers return it as is; {@code FileDownloadReturnValueHandler} writes the
+ * body with non-blocking servlet I/O, so a transfer holds no thread while it waits for S3 or for
+ * a slow client.
+ */
+public record FileDownload(HttpStatusCode status, HttpHeaders headers, Publisher<ByteBuffer> body) {
+
+    static FileDownload of(ResponseEntity<?> head) {
+        return of(head, null);
+    }
+
+    static FileDownload of(ResponseEntity<?> head, Publisher<ByteBuffer> body) {
+        // bản sao ghi được, để service gọi ở trên còn thêm header (vd. Cache-Control)
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(head.getHeaders());
+        return new FileDownload(head.getStatusCode(), headers, body);
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.demo.service;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@code count} bytes of an open file from {@code start}, published as {@link #CHUNK_SIZE} slices
+ * of read-only mappings of the file (mapped {@link #MAP_WINDOW} at a time), so the page cache is
+ * read directly and no heap buffer is allocated per chunk. Single subscriber; the channel is
+ * closed once the region is sent, on a read error or on cancel.
+ */
+final class FileRegionPublisher implements Publisher<ByteBuffer> {
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final long MAP_WINDOW = 64L * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long start;
+    private final long count;
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    FileRegionPublisher(FileChannel channel, long start, long count) {
+        this.channel = channel;
+        this.start = start;
+        this.count = count;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super ByteBuffer> subscriber) {
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("File region already subscribed"));
+            return;
+        }
+        subscriber.onSubscribe(new RegionSubscription(subscriber));
+    }
+
+    private final class RegionSubscription implements Subscription {
+        private final Subscriber<? super ByteBuffer> subscriber;
+        private long sent;
+        private MappedByteBuffer window;
+        private long windowStart;
+        private long demand;
+        private boolean emitting;
+        private boolean done;
+
+        RegionSubscription(Subscriber<? super ByteBuffer> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                fail(new IllegalArgumentException("Demand must be positive: " + n));
+                return;
+            }
+            synchronized (this) {
+                demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                if (emitting) {
+                    // request() gọi lại từ trong onNext: vòng lặp bên dưới sẽ phát tiếp
+                    return;
+                }
+                emitting = true;
+            }
+            emit();
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                done = true;
+            }
+            close();
+        }
+
+        private void emit() {
+            while (true) {
+                synchronized (this) {
+                    if (done || (demand == 0 && sent < count)) {
+                        emitting = false;
+                        return;
+                    }
+                    if (sent >= count) {
+                        done = true;
+                    } else {
+                        demand--;
+                    }
+                }
+                if (sent >= count) {
+                    close();
+                    subscriber.onComplete();
+                    return;
+                }
+                if (window == null || sent >= windowStart + window.capacity()) {
+                    try {
+                        mapNextWindow();
+                    } catch (IOException e) {
+                        fail(e);
+                        return;
+                    }
+                }
+                int offset = (int) (sent - windowStart);
+                int length = Math.min(CHUNK_SIZE, window.capacity() - offset);
+                ByteBuffer chunk = window.slice(offset, length);
+                sent += length;
+                subscriber.onNext(chunk);
+            }
+        }
+
+        private void mapNextWindow() throws IOException {
+            // đọc quá cuối một mapping READ_ONLY không xác định: kiểm tra trước
+            if (channel.size() < start + count) {
+                throw new EOFException("File is shorter than expected");
+            }
+            windowStart = sent;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, start + sent, Math.min(MAP_WINDOW, count - sent));
+        }
+
+        private void fail(Throwable error) {
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                done = true;
+            }
+            close();
+            subscriber.onError(error);
+        }
+
+        private void close() {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // chỉ đọc, không có gì để mất
+            }
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.demo.service;
+
+import com.example.demo.domain.PendingObjectDeletion;
+import com.example.demo.domain.StoredObject;
+import com.example.demo.repository.PendingObjectDeletionRepository;
+import com.example.demo.repository.StoredObjectRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.Delete;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.S3Error;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deletes S3 objects through the {@link PendingObjectDeletion} outbox: callers {@link #enqueue}
+ * keys inside the transaction that deletes the owning rows, and {@link #drain} removes them
+ * with {@code DeleteObjects} batches, retrying failed keys with exponential backoff. Deleting
+ * a key twice is harmless, so several instances may drain concurrently. Keys of a
+ * {@link StoredObject} that is referenced again are dropped from the outbox without deleting.
+ */
+@Slf4j
+@Service
+public class ObjectDeletionService {
+    // giới hạn của S3 DeleteObjects
+    private static final int MAX_KEYS_PER_REQUEST = 1000;
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final PendingObjectDeletionRepository pendingObjectDeletionRepository;
+    private final StoredObjectRepository storedObjectRepository;
+    private final S3Client s3Client;
+    private final String bucketName;
+    private final Duration retryDelay;
+    private final Duration maxRetryDelay;
+    private final Counter deletedCounter;
+    private final Counter failedCounter;
+    private final AtomicLong backlog = new AtomicLong();
+
+    public ObjectDeletionService(PendingObjectDeletionRepository pendingObjectDeletionRepository,
+                                 StoredObjectRepository storedObjectRepository,
+                                 S3Client s3Client,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${aws.s3.bucket}") String bucketName,
+                                 @Value("${lms.storage.deletion-retry-delay:30s}") Duration retryDelay,
+                                 @Value("${lms.storage.deletion-max-retry-delay:1h}") Duration maxRetryDelay) {
+        this.pendingObjectDeletionRepository = pendingObjectDeletionRepository;
+        this.storedObjectRepository = storedObjectRepository;
+        this.s3Client = s3Client;
+        this.bucketName = bucketName;
+        this.retryDelay = retryDelay;
+        this.maxRetryDelay = maxRetryDelay;
+        this.deletedCounter = Counter.builder("lms.storage.deletions").tag("outcome", "deleted").register(meterRegistry);
+        this.failedCounter = Counter.builder("lms.storage.deletions").tag("outcome", "failed").register(meterRegistry);
+        Gauge.builder("lms.storage.deletions.backlog", backlog, AtomicLong::get).register(meterRegistry);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(Collection<String> objectKeys) {
+        List<PendingObjectDeletion> rows = new ArrayList<>(objectKeys.size());
+        for (String objectKey : objectKeys) {
+            rows.add(new PendingObjectDeletion(objectKey));
+        }
+        pendingObjectDeletionRepository.saveAll(rows);
+    }
+
+    /**
+     * Sends one {@code DeleteObjects} request for up to 1000 due keys.
+     *
+     * @return number of outbox rows handled, 0 when nothing is due
+     */
+    @Transactional
+    public int drain() {
+        LocalDateTime now = LocalDateTime.now();
+        List<PendingObjectDeletion> due = pendingObjectDeletionRepository
+                .findDue(now, PageRequest.of(0, MAX_KEYS_PER_REQUEST));
+        if (due.isEmpty()) {
+            backlog.set(pendingObjectDeletionRepository.count());
+            return 0;
+        }
+
+        // the same key may be queued more than once, e.g. a course and one of its documents
+        Map<String, List<PendingObjectDeletion>> byKey = new HashMap<>();
+        for (PendingObjectDeletion row : due) {
+            byKey.computeIfAbsent(row.getObjectKey(), key -> new ArrayList<>()).add(row);
+        }
+        // content-addressed objects that got a new reference since they were queued are kept;
+        // the lock holds back new references until the objects below are gone
+        // (a preview follows the object it was rendered from)
+        Map<String, String> owners = new HashMap<>();
+        for (String key : byKey.keySet()) {
+            String source = DocumentPreviewService.sourceKeyOf(key);
+            owners.put(key, source != null ? source : key);
+        }
+        Set<String> referenced = new HashSet<>();
+        for (StoredObject stored : storedObjectRepository.lockByObjectKeys(new HashSet<>(owners.values()))) {
+            if (stored.getRefCount() > 0) {
+                referenced.add(stored.getObjectKey());
+            }
+        }
+        List<ObjectIdentifier> objects = byKey.keySet().stream()
+                .filter(key -> !referenced.contains(owners.get(key)))
+                .map(key -> ObjectIdentifier.builder().key(key).build())
+                .toList();
+
+        Map<String, String> errors = new HashMap<>();
+        if (!objects.isEmpty()) {
+            try {
+                DeleteObjectsResponse response = s3Client.deleteObjects(
+                        DeleteObjectsRequest.builder()
+                                .bucket(bucketName)
+                                .delete(Delete.builder().objects(objects).quiet(true).build())
+                                .build()
+                );
+                for (S3Error error : response.errors()) {
+                    errors.put(error.key(), error.code() + ": " + error.message());
+                }
+            } catch (RuntimeException e) {
+                log.warn("DeleteObjects for {} keys failed", objects.size(), e);
+                objects.forEach(object -> errors.put(object.key(), e.getMessage()));
+            }
+        }
+
+        List<Long> done = new ArrayList<>();
+        byKey.forEach((key, rows) -> {
+            String error = errors.get(key);
+            for (PendingObjectDeletion row : rows) {
+                if (error == null) {
+                    done.add(row.getId());
+                } else {
+                    pendingObjectDeletionRepository.recordFailure(row.getId(), now.plus(backoff(row.getAttempts())),
+                            truncate(error));
+                }
+            }
+        });
+        if (!done.isEmpty()) {
+            pendingObjectDeletionRepository.deleteByIdIn(done);
+        }
+        List<String> deletedKeys = objects.stream()
+                .map(ObjectIdentifier::key)
+                .filter(key -> !errors.containsKey(key))
+                .toList();
+        if (!deletedKeys.isEmpty()) {
+            storedObjectRepository.deleteUnreferenced(deletedKeys);
+        }
+        deletedCounter.increment(deletedKeys.size());
+        failedCounter.increment(errors.size());
+        backlog.set(pendingObjectDeletionRepository.count());
+        return due.size();
+    }
+
+    private Duration backoff(int attempts) {
+        Duration delay = retryDelay.multipliedBy(1L << Math.min(attempts, 20));
+        return delay.compareTo(maxRetryDelay) > 0 ? maxRetryDelay : delay;
+    }
+
+    private static String truncate(String error) {
+        if (error == null) {
+            return null;
+        }
+        return error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH);
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.demo.service;
+
+import com.example.demo.domain.RefreshToken;
+import com.example.demo.domain.User;
+import com.example.demo.dto.response.ResLoginDTO;
+import com.example.demo.repository.RefreshTokenRepository;
+import com.example.demo.util.SecurityUtil;
+import com.example.demo.util.errors.CustomException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Server side of the refresh tokens: each token carries a random {@code jti} whose hash is the
+ * key of a {@link RefreshToken} row, so a user may stay logged in on several devices and every
+ * check is an indexed point lookup. Refreshing rotates the row with one conditional UPDATE.
+ */
+@Service
+@RequiredArgsConstructor
+public class RefreshTokenService {
+    final private RefreshTokenRepository refreshTokenRepository;
+    final private SecurityUtil securityUtil;
+    final private PlatformTransactionManager transactionManager;
+
+    @Value("${tuan.jwt.refresh-token-validity-in-seconds}")
+    private Long refreshTokenExpirationInSeconds;
+
+    /**
+     * New refresh token for a fresh login.
+     */
+    @Transactional
+    public String issue(User user, ResLoginDTO dto) {
+        String jti = UUID.randomUUID().toString();
+        String token = securityUtil.createRefreshToken(user.getEmail(), dto, jti);
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setUserId(user.getUserId());
+        refreshToken.setTokenHash(hash(jti));
+        refreshToken.setExpiresAt(LocalDateTime.now().plusSeconds(refreshTokenExpirationInSeconds));
+        refreshTokenRepository.save(refreshToken);
+        return token;
+    }
+
+    /**
+     * Exchanges the (already signature-checked) token with id {@code jti} for a new one.
+     */
+    @Transactional
+    public String rotate(String jti, String email, ResLoginDTO dto) {
+        if (jti == null) {
+            // token phát hành trước khi có jti: bắt đăng nhập lại
+            throw new CustomException("Refresh token invalid");
+        }
+        String newJti = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now();
+        int rotated = refreshTokenRepository.rotate(hash(jti), hash(newJti),
+                now.plusSeconds(refreshTokenExpirationInSeconds), now);
+        if (rotated == 0) {
+            throw new CustomException("Refresh token invalid");
+        }
+        return securityUtil.createRefreshToken(email, dto, newJti);
+    }
+
+    @Transactional
+    public void revoke(String jti) {
+        if (jti != null) {
+            refreshTokenRepository.deleteByTokenHash(hash(jti));
+        }
+    }
+
+    /**
+     * Logs the user out on every device.
+     */
+    @Transactional
+    public void revokeAll(String userId) {
+        refreshTokenRepository.deleteByUserId(userId);
+    }
+
+    /**
+     * Deletes expired tokens, one chunk of ids per transaction.
+     */
+    public int purgeExpired(int batchSize) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        LocalDateTime now = LocalDateTime.now();
+        int purged = 0;
+        while (true) {
+            List<Long> ids = refreshTokenRepository.findExpiredIds(now, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            purged += tx.execute(status -> refreshTokenRepository.deleteByIdIn(ids));
+        }
+        return purged;
+    }
+
+    private static String hash(String jti) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(jti.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,106 +1,56 @@
 package com.example.demo.service;
 
 import com.example.demo.domain.*;
-import com.example.demo.domain.enumeration.EnrollmentStatus;
-import com.example.demo.domain.enumeration.Role;
-import com.example.demo.dto.response.courseDTO.ResponseCourseDTO;
 import com.example.demo.dto.response.report.ProgressLearning;
 import com.example.demo.repository.CourseRepository;
-import com.example.demo.repository.SubmissionRepository;
-import com.example.demo.repository.UserRepository;
-import jakarta.persistence.criteria.Join;
-import jakarta.persistence.criteria.JoinType;
-import jakarta.persistence.criteria.Predicate;
+import com.example.demo.repository.projection.ProgressTotals;
+import com.example.demo.repository.projection.UserIdentity;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
-import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-import java.util.stream.Collectors;
-
 @Service
 @RequiredArgsConstructor
 public class ReportService {
-    final private SubmissionRepository submissionRepository;
-    final private AssignmentService assignmentService;
-    final private UserRepository userRepository;
+    final private StudentProgressService studentProgressService;
     final private CourseRepository courseRepository;
+    final private UserIdentityCache userIdentityCache;
     public ProgressLearning getResultLearningStudent(String email) {
-        User user = userRepository.findByEmail(email)
+        UserIdentity user = userIdentityCache.findActive(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
-        // get all courses the student is enrolled in
-        List<Course> courses= courseRepository.findAll().stream()
-                .filter(course -> course.getEnrollments().stream()
-                        .anyMatch(enrollment -> enrollment.getStudent().getUserId().equals(user.getUserId())
-                                && enrollment.getStatus() == EnrollmentStatus.ACCEPTED))
-                .collect(Collectors.toList());
-        // for each course, get all assignments and submissions
-        List<Assignment> assignments=courses.stream().flatMap(course -> course.getAssignments().stream())
-                .collect(Collectors.toList());
-        // for each assignment, get the submission of the student
-        List<Submission> submissions=assignments.stream()
-                .map(assignment -> submissionRepository.findByAssignmentAndStudent(assignment, user).orElse(null))
-                .filter(submission -> submission != null)
-                .collect(Collectors.toList());
-        // calculate progress
-        int totalCourses=courses.size();
-        int totalAssignments=assignments.size();
-        int totalSubmissions=submissions.size();
-        int submittedAssignments=submissions.size();
-        List<Double> grades=submissions.stream()
-                .filter(submission -> submission.getGrade() != null)
-                .map(Submission::getGrade)
-                .collect(Collectors.toList());
-
-        double submissionRate= totalAssignments==0 ? 0.0 : ((double) submittedAssignments / totalAssignments) * 100;
-        ProgressLearning progressLearning=new ProgressLearning();
-        progressLearning.setNumberCourse(totalCourses);
-        progressLearning.setNumberSubmissions(totalSubmissions);
-        progressLearning.setNumberAssignments(totalAssignments);
-        progressLearning.setSubmissionRate(submissionRate);
-        if (!grades.isEmpty()){
-            double sum=grades.stream().mapToDouble(Double::doubleValue).sum();
-            double averageGrade=sum/grades.size();
-            progressLearning.setAverageGrade(averageGrade);
-        }
-        return progressLearning;
+        // one row per course the student is ACCEPTED in, summed in a single query
+        ProgressTotals totals = studentProgressService.getTotals(user.userId());
+        return buildProgress(toLong(totals.getCourseCount()), toLong(totals.getAssignmentCount()),
+                toLong(totals.getSubmittedCount()), toLong(totals.getGradedCount()),
+                totals.getGradedSum() == null ? 0.0 : totals.getGradedSum());
     }
     public ProgressLearning getResultLearningStudentByCourseId(String email, Long courseId) {
-        User user = userRepository.findByEmail(email)
+        UserIdentity user = userIdentityCache.findActive(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
-        // get all courses the student is enrolled in
-        Course courses= courseRepository.findById(courseId).orElse(null);
-        List<Assignment> assignments=courses.getAssignments().stream()
-                .collect(Collectors.toList());
-        // for each assignment, get the submission of the student
-        List<Submission> submissions=assignments.stream()
-                .map(assignment -> submissionRepository.findByAssignmentAndStudent(assignment, user).orElse(null))
-                .filter(submission -> submission != null)
-                .collect(Collectors.toList());
-        // calculate progress
-        int totalCourses=1;
-        int totalAssignments=assignments.size();
-        int totalSubmissions=submissions.size();
-        int submittedAssignments=submissions.size();
-        List<Double> grades=submissions.stream()
-                .filter(submission -> submission.getGrade() != null)
-                .map(Submission::getGrade)
-                .collect(Collectors.toList());
+        if (!courseRepository.existsById(courseId)) {
+            throw new RuntimeException("Course not found");
+        }
+        StudentCourseProgress progress = studentProgressService.getSnapshot(user.userId(), courseId);
+        return buildProgress(1, progress.getAssignmentCount(), progress.getSubmittedCount(),
+                progress.getGradedCount(), progress.getGradedSum());
+    }
 
-        double submissionRate= totalAssignments==0 ? 0.0 : ((double) submittedAssignments / totalAssignments) * 100;
-        ProgressLearning progressLearning=new ProgressLearning();
-        progressLearning.setNumberCourse(totalCourses);
-        progressLearning.setNumberSubmissions(totalSubmissions);
-        progressLearning.setNumberAssignments(totalAssignments);
+    private ProgressLearning buildProgress(long totalCourses, long totalAssignments, long totalSubmissions,
+                                           long gradedSubmissions, double gradedSum) {
+        double submissionRate = totalAssignments == 0 ? 0.0 : ((double) totalSubmissions / totalAssignments) * 100;
+        ProgressLearning progressLearning = new ProgressLearning();
+        progressLearning.setNumberCourse((int) totalCourses);
+        progressLearning.setNumberSubmissions((int) totalSubmissions);
+        progressLearning.setNumberAssignments((int) totalAssignments);
         progressLearning.setSubmissionRate(submissionRate);
-        if (!grades.isEmpty()){
-            double sum=grades.stream().mapToDouble(Double::doubleValue).sum();
-            double averageGrade=sum/grades.size();
-            progressLearning.setAverageGrade(averageGrade);
+        if (gradedSubmissions > 0) {
+            progressLearning.setAverageGrade(gradedSum / gradedSubmissions);
         }
         return progressLearning;
     }
 
+    private static long toLong(Long value) {
+        return value == null ? 0L : value;
+    }
+
 
 }
@@ -0,0 +1,99 @@
+package com.example.demo.service;
+
+import com.example.demo.domain.StoredObject;
+import com.example.demo.repository.StoredObjectRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Content-addressed storage of uploaded files: identical bytes are kept once, under
+ * {@code <folder>/<sha256><extension>}, and shared through the {@link StoredObject} reference count.
+ */
+@Service
+@RequiredArgsConstructor
+public class StoredObjectService {
+    final private StoredObjectRepository storedObjectRepository;
+    final private UploadFileService uploadFileService;
+    final private ObjectDeletionService objectDeletionService;
+    final private PlatformTransactionManager transactionManager;
+
+    /**
+     * Takes a reference on the object holding these bytes, uploading them only if the bucket does
+     * not have them yet. The reference is committed on return; callers that then fail to save
+     * their row must give it back with {@link #release}.
+     */
+    public UploadFileService.UploadedFile store(MultipartFile file, String folder) throws IOException {
+        byte[] digest = uploadFileService.sha256(file);
+        String sha256 = HexFormat.of().formatHex(digest);
+        String filename = sha256 + extensionOf(file.getOriginalFilename());
+        String key = folder + "/" + filename;
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        StoredObject existing = tx.execute(status -> storedObjectRepository.acquire(key) == 1
+                ? storedObjectRepository.findById(key).orElse(null)
+                : null);
+        if (existing != null) {
+            return new UploadFileService.UploadedFile(filename, existing.getEtag());
+        }
+
+        String eTag = uploadFileService.putObject(key, file, digest);
+        tx.executeWithoutResult(status -> storedObjectRepository.acquireNew(key, sha256, file.getSize(),
+                file.getContentType(), eTag, LocalDateTime.now()));
+        // an earlier copy of these bytes may have been deleted between our PUT and our reference;
+        // now that the reference is committed the deletion worker skips the key, so one check is enough
+        if (uploadFileService.headObject(folder, filename).isEmpty()) {
+            uploadFileService.putObject(key, file, digest);
+        }
+        return new UploadFileService.UploadedFile(filename, eTag);
+    }
+
+    /**
+     * Drops one reference per occurrence of each key and queues the objects nobody references
+     * any more, with their previews, for deletion. Keys without a row predate deduplication or
+     * come from a direct upload, and belong to a single document.
+     *
+     * @return keys queued for deletion
+     */
+    @Transactional
+    public List<String> release(Collection<String> objectKeys) {
+        if (objectKeys.isEmpty()) {
+            return List.of();
+        }
+        Map<String, Long> counts = objectKeys.stream()
+                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+        List<String> unreferenced = new ArrayList<>();
+        counts.forEach((key, count) -> {
+            if (storedObjectRepository.release(key, count.intValue()) == 0) {
+                unreferenced.add(key);
+            }
+        });
+        unreferenced.addAll(storedObjectRepository.findUnreferencedKeys(counts.keySet()));
+        List<String> withPreviews = new ArrayList<>(unreferenced);
+        unreferenced.forEach(key -> withPreviews.add(DocumentPreviewService.previewKeyOf(key)));
+        objectDeletionService.enqueue(withPreviews);
+        return unreferenced;
+    }
+
+    private static String extensionOf(String originalFilename) {
+        if (originalFilename == null || !originalFilename.contains(".")) {
+            return "";
+        }
+        String extension = originalFilename.substring(originalFilename.lastIndexOf(".")).toLowerCase();
+        // phần mở rộng chỉ để tên file tải về dễ dùng, bỏ qua nếu có ký tự lạ
+        return extension.matches("\\.[a-z0-9]{1,10}") ? extension : "";
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.demo.service;
+
+import com.example.demo.domain.StudentCourseProgress;
+import com.example.demo.domain.enumeration.EnrollmentStatus;
+import com.example.demo.repository.AssignmentRepository;
+import com.example.demo.repository.CourseEnrollmentRepository;
+import com.example.demo.repository.StudentCourseProgressBatchWriter;
+import com.example.demo.repository.StudentCourseProgressRepository;
+import com.example.demo.repository.SubmissionRepository;
+import com.example.demo.repository.projection.CourseCount;
+import com.example.demo.repository.projection.EnrollmentKey;
+import com.example.demo.repository.projection.ProgressTotals;
+import com.example.demo.repository.projection.StudentCourseSubmissionStats;
+import com.example.demo.repository.projection.SubmissionStats;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the {@link StudentCourseProgress} snapshot. The {@code on*} hooks are called by the
+ * writing services inside their own transaction, so the snapshot commits or rolls back with them.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StudentProgressService {
+    final private StudentCourseProgressRepository progressRepository;
+    final private StudentCourseProgressBatchWriter progressBatchWriter;
+    final private AssignmentRepository assignmentRepository;
+    final private SubmissionRepository submissionRepository;
+    final private CourseEnrollmentRepository courseEnrollmentRepository;
+    final private PlatformTransactionManager transactionManager;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onSubmissionGraded(String studentId, Long courseId, double grade) {
+        int updated = progressRepository.recordGradedSubmission(studentId, courseId, grade);
+        if (updated == 0) {
+            // row predates the snapshot table: derive it, the new submission is already flushed
+            insertSnapshot(studentId, courseId);
+        }
+    }
+
+    /**
+     * Queued submission: counted as submitted now, its grade is added by
+     * {@link #onQueuedSubmissionGraded} once the grading worker is done.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onSubmissionQueued(String studentId, Long courseId) {
+        if (progressRepository.recordSubmission(studentId, courseId) == 0) {
+            insertSnapshot(studentId, courseId);
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onQueuedSubmissionGraded(String studentId, Long courseId, double grade) {
+        if (progressRepository.recordGrade(studentId, courseId, grade) == 0) {
+            insertSnapshot(studentId, courseId);
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onAssignmentCreated(Long courseId) {
+        progressRepository.adjustAssignmentCount(courseId, 1);
+    }
+
+    /**
+     * Deleting an assignment also removes its submissions, so the course rows are recomputed.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onAssignmentDeleted(Long courseId) {
+        progressRepository.deleteByCourseId(courseId);
+        List<String> studentIds = courseEnrollmentRepository
+                .findStudentIdsByCourseIdAndStatus(courseId, EnrollmentStatus.ACCEPTED);
+        if (!studentIds.isEmpty()) {
+            progressRepository.saveAll(computeSnapshots(studentIds, Set.of(courseId), pairsOf(studentIds, courseId)));
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onAssignmentMoved(Long fromCourseId, Long toCourseId) {
+        progressRepository.adjustAssignmentCount(fromCourseId, -1);
+        progressRepository.adjustAssignmentCount(toCourseId, 1);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onEnrollmentAccepted(String studentId, Long courseId) {
+        progressRepository.save(computeSnapshot(studentId, courseId));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onCourseDeleted(Long courseId) {
+        progressRepository.deleteByCourseId(courseId);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onStudentDeleted(String studentId) {
+        progressRepository.deleteByStudentId(studentId);
+    }
+
+    /**
+     * Stored snapshot of a student in a course, or one computed on the fly (and not stored)
+     * when the student has no row, e.g. because they are not an accepted member.
+     */
+    public StudentCourseProgress getSnapshot(String studentId, Long courseId) {
+        return progressRepository.findById(new StudentCourseProgress.Key(studentId, courseId))
+                .orElseGet(() -> computeSnapshot(studentId, courseId));
+    }
+
+    public ProgressTotals getTotals(String studentId) {
+        return progressRepository.totalsByStudentId(studentId);
+    }
+
+    /**
+     * Recomputes the whole table from enrollments, assignments and submissions, one batch of
+     * accepted enrollments per transaction; rows it did not refresh (enrollments no longer
+     * accepted) are deleted at the end.
+     * <p>
+     * It can run while submissions keep writing: each batch first locks its progress rows, before
+     * any consistent read, so a submission that committed its increment earlier is seen by the
+     * stats query, and one that has not yet waits and increments the rebuilt row afterwards.
+     */
+    public int rebuildAll(int batchSize) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        LocalDateTime startedAt = LocalDateTime.now();
+        long afterId = 0L;
+        int rebuilt = 0;
+        while (true) {
+            List<EnrollmentKey> keys = courseEnrollmentRepository
+                    .findKeysByStatusAfter(EnrollmentStatus.ACCEPTED, afterId, PageRequest.of(0, batchSize));
+            if (keys.isEmpty()) {
+                break;
+            }
+            tx.executeWithoutResult(status -> {
+                Set<String> studentIds = keys.stream().map(EnrollmentKey::getStudentId).collect(Collectors.toSet());
+                Set<Long> courseIds = keys.stream().map(EnrollmentKey::getCourseId).collect(Collectors.toSet());
+                // câu lệnh đầu tiên của transaction: snapshot đọc (REPEATABLE READ) chỉ được tạo sau khi có lock
+                progressRepository.lockByStudentIdsAndCourseIds(studentIds, courseIds);
+                List<StudentCourseProgress.Key> pairs = keys.stream()
+                        .map(k -> new StudentCourseProgress.Key(k.getStudentId(), k.getCourseId()))
+                        .toList();
+                progressBatchWriter.upsertAll(computeSnapshots(studentIds, courseIds, pairs));
+            });
+            rebuilt += keys.size();
+            afterId = keys.get(keys.size() - 1).getId();
+            log.info("Rebuilt {} student course progress rows", rebuilt);
+        }
+        // dòng được ghi trong lúc rebuild có updatedAt mới hơn nên được giữ lại
+        Integer removed = tx.execute(status -> progressRepository.deleteNotUpdatedSince(startedAt));
+        log.info("Removed {} stale student course progress rows", removed);
+        return rebuilt;
+    }
+
+    /**
+     * Upsert rather than insert: the rebuild may have created the row while this transaction
+     * waited on its lock.
+     */
+    private void insertSnapshot(String studentId, Long courseId) {
+        progressBatchWriter.upsertAll(List.of(computeSnapshot(studentId, courseId)));
+    }
+
+    private StudentCourseProgress computeSnapshot(String studentId, Long courseId) {
+        SubmissionStats stats = submissionRepository.statsByStudentAndCourse(studentId, courseId);
+        StudentCourseProgress progress = new StudentCourseProgress(studentId, courseId);
+        progress.setAssignmentCount((int) assignmentRepository.countByCourseId(courseId));
+        progress.setSubmittedCount(toInt(stats.getSubmissionCount()));
+        progress.setGradedCount(toInt(stats.getGradedCount()));
+        progress.setGradedSum(stats.getGradeSum() == null ? 0.0 : stats.getGradeSum());
+        return progress;
+    }
+
+    private List<StudentCourseProgress> computeSnapshots(Collection<String> studentIds, Set<Long> courseIds,
+                                                         List<StudentCourseProgress.Key> pairs) {
+        Map<Long, Long> assignmentCounts = new HashMap<>();
+        for (CourseCount count : assignmentRepository.countGroupedByCourseId(courseIds)) {
+            assignmentCounts.put(count.getCourseId(), count.getCount());
+        }
+        Map<StudentCourseProgress.Key, StudentCourseSubmissionStats> submissionStats = new HashMap<>();
+        for (StudentCourseSubmissionStats stats : submissionRepository.statsGroupedByStudentAndCourse(studentIds, courseIds)) {
+            submissionStats.put(new StudentCourseProgress.Key(stats.getStudentId(), stats.getCourseId()), stats);
+        }
+        List<StudentCourseProgress> result = new ArrayList<>(pairs.size());
+        for (StudentCourseProgress.Key key : pairs) {
+            StudentCourseProgress progress = new StudentCourseProgress(key.getStudentId(), key.getCourseId());
+            progress.setAssignmentCount(toInt(assignmentCounts.get(key.getCourseId())));
+            StudentCourseSubmissionStats stats = submissionStats.get(key);
+            if (stats != null) {
+                progress.setSubmittedCount(toInt(stats.getSubmissionCount()));
+                progress.setGradedCount(toInt(stats.getGradedCount()));
+                progress.setGradedSum(stats.getGradeSum() == null ? 0.0 : stats.getGradeSum());
+            }
+            result.add(progress);
+        }
+        return result;
+    }
+
+    private static List<StudentCourseProgress.Key> pairsOf(List<String> studentIds, Long courseId) {
+        return studentIds.stream().map(id -> new StudentCourseProgress.Key(id, courseId)).toList();
+    }
+
+    private static int toInt(Long value) {
+        return value == null ? 0 : value.intValue();
+    }
+}
@@ -1,33 +1,73 @@
 package com.example.demo.service;
 
 import com.example.demo.domain.*;
-import com.example.demo.domain.enumeration.EnrollmentStatus;
 import com.example.demo.domain.enumeration.StatusAssignment;
 import com.example.demo.dto.request.submission.SubmitSubmissionDTO;
+import com.example.demo.dto.response.ResultPaginationDTO;
 import com.example.demo.dto.response.submissionDTO.ResponseDetailSubmissionDTO;
 import com.example.demo.dto.response.submissionDTO.SubmissionListItemDTO;
 import com.example.demo.repository.*;
+import com.example.demo.repository.projection.UserIdentity;
+import com.example.demo.service.grading.AnswerKey;
+import com.example.demo.service.grading.AnswerKeyCache;
+import com.example.demo.service.grading.GradedAnswers;
+import com.example.demo.util.CurrentUser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class SubmissionService {
     final private SubmissionRepository submissionRepository;
     final private AssignmentRepository assignmentRepository;
     final private UserRepository userRepository;
-    final private AnswerOfSubmissionRepository answerOfSubmissionRepository;
-    final private QuestionRepository questionRepository;
-    final private CourseEnrollmentRepository courseEnrollmentRepository;
+    final private AnswerOfSubmissionBatchWriter answerOfSubmissionBatchWriter;
+    final private AnswerKeyCache answerKeyCache;
+    final private StudentProgressService studentProgressService;
+    final private SubmissionIntakeRepository submissionIntakeRepository;
+    final private ObjectMapper objectMapper;
+    final private PlatformTransactionManager transactionManager;
+    final private UserIdentityCache userIdentityCache;
+    final private CourseMembershipService courseMembershipService;
 
-    public void submitSubmission(SubmitSubmissionDTO submitSubmissionDTO, String userEmail) {
-        User user = userRepository.findByEmail(userEmail).orElse(null);
-        if (user == null) {
+    private static final Set<String> ROSTER_SORT_KEYS = Set.of("grade", "submittedAt");
+
+    private static final TypeReference<List<SubmitSubmissionDTO.AnswerTheQuestion>> ANSWER_LIST = new TypeReference<>() {
+    };
+
+    @Value("${lms.grading.async-intake:false}")
+    private boolean asyncIntake;
+
+    /**
+     * Validates and stores a submission. In async intake mode the answers are queued and graded
+     * later by {@code SubmissionGradingWorker}; the submission has no grade until then.
+     *
+     * @return id of the created submission
+     */
+    @Transactional
+    public Long submitSubmission(SubmitSubmissionDTO submitSubmissionDTO, String userEmail) {
+        UserIdentity identity = userIdentityCache.findActive(userEmail).orElse(null);
+        if (identity == null) {
             throw new RuntimeException("người dùng không tồn tại");
         }
+        // chỉ cần khóa ngoại, không đọc lại bảng User
+        User user = userRepository.getReferenceById(identity.userId());
 
         Assignment assignment = assignmentRepository.findById(submitSubmissionDTO.getAssignmentId()).orElse(null);
         if (assignment == null) {
@@ -44,9 +84,7 @@ public class SubmissionService {
 
         // Kiểm tra student đã được accepted vào course chưa
         Course course = assignment.getCourse();
-        boolean isEnrolled = courseEnrollmentRepository
-                .existsByStudentAndCourseAndStatus(user, course, EnrollmentStatus.ACCEPTED);
-        if (!isEnrolled) {
+        if (!courseMembershipService.isAcceptedStudent(course.getId(), identity.userId())) {
             throw new RuntimeException("Bạn không thuộc khóa học này");
         }
 
@@ -55,68 +93,137 @@ public class SubmissionService {
             throw new RuntimeException("Bạn đã nộp bài tập này rồi");
         }
 
-        // Tạo bài nộp
+        // Chấm bài trên answer key (mảng id câu hỏi đã sắp xếp + đáp án đúng)
+        AnswerKey answerKey = answerKeyCache.get(assignment.getId());
+        int numberOfQuestion = answerKey.size();
+        if (numberOfQuestion == 0) {
+            throw new RuntimeException("Bài tập không có câu hỏi");
+        }
+
         Submission submission = new Submission();
         submission.setAssignment(assignment);
         submission.setStudent(user);
-        submission.setAnswerOfSubmissions(new ArrayList<AnswerOfSubmission>());
 
-        int numberOfCorrectAnswer = 0;
-        int numberOfQuestion = assignment.getQuestions().size();
-
-        if (numberOfQuestion == 0) {
-            throw new RuntimeException("Bài tập không có câu hỏi");
+        if (asyncIntake) {
+            // Lưu câu trả lời vào hàng đợi, worker sẽ chấm sau
+            answerKey.validate(submitSubmissionDTO.getAnswers());
+            submissionRepository.save(submission);
+            SubmissionIntake intake = new SubmissionIntake();
+            intake.setSubmissionId(submission.getId());
+            intake.setAssignmentId(assignment.getId());
+            intake.setCourseId(course.getId());
+            intake.setStudentId(identity.userId());
+            intake.setAnswers(writeAnswers(submitSubmissionDTO.getAnswers()));
+            submissionIntakeRepository.save(intake);
+            studentProgressService.onSubmissionQueued(identity.userId(), course.getId());
+            return submission.getId();
         }
 
-        List<Question> questions = assignment.getQuestions();
-        for (SubmitSubmissionDTO.AnswerTheQuestion answerDTO : submitSubmissionDTO.getAnswers()) {
-            Question question = questions.stream()
-                    .filter(q -> q.getId().equals(answerDTO.getQuestionId()))
-                    .findFirst()
-                    .orElse(null);
-            if (question == null) {
-                throw new RuntimeException("Câu hỏi không tồn tại trong bài tập");
+        GradedAnswers graded = answerKey.grade(submitSubmissionDTO.getAnswers());
+        Double score = score(graded.correctCount(), numberOfQuestion);
+        submission.setGrade(score);
+        submission.setCorrectCount(graded.correctCount());
+        submission.setQuestionCount(numberOfQuestion);
+        submissionRepository.save(submission);
+        answerOfSubmissionBatchWriter.insertAll(submission.getId(), graded);
+        studentProgressService.onSubmissionGraded(identity.userId(), course.getId(), score);
+        return submission.getId();
+    }
+
+    public boolean isAsyncIntake() {
+        return asyncIntake;
+    }
+
+    /**
+     * Grades a batch of claimed queue rows in one transaction and removes them from the queue.
+     * Rows whose submission was deleted in the meantime are just dropped.
+     */
+    @Transactional
+    public void gradeQueued(List<SubmissionIntake> batch) {
+        for (SubmissionIntake intake : batch) {
+            AnswerKey answerKey = answerKeyCache.get(intake.getAssignmentId());
+            GradedAnswers graded = answerKey.grade(readAnswers(intake.getAnswers()));
+            double score = score(graded.correctCount(), answerKey.size());
+            if (submissionRepository.recordGrade(intake.getSubmissionId(), score,
+                    graded.correctCount(), answerKey.size()) == 1) {
+                answerOfSubmissionBatchWriter.insertAll(intake.getSubmissionId(), graded);
+                studentProgressService.onQueuedSubmissionGraded(intake.getStudentId(), intake.getCourseId(), score);
             }
+        }
+        submissionIntakeRepository.deleteAllInBatch(batch);
+    }
 
-            AnswerOfSubmission answerOfSubmission = new AnswerOfSubmission();
-            answerOfSubmission.setQuestion(question);
-            answerOfSubmission.setSubmission(submission);
-            answerOfSubmission.setAnswer(answerDTO.getAnswer());
+    /**
+     * Gives up on queue rows that used all their attempts: their submissions are marked
+     * {@code gradingFailed} so students see a failure instead of "grading" forever, and the rows
+     * are removed from the queue.
+     */
+    @Transactional
+    public void failQueued(List<SubmissionIntake> intakes) {
+        submissionRepository.markGradingFailed(intakes.stream().map(SubmissionIntake::getSubmissionId).toList());
+        submissionIntakeRepository.deleteAllInBatch(intakes);
+    }
 
-            if (question.getCorrectAnswer().equals(answerDTO.getAnswer())) {
-                answerOfSubmission.setCorrect(true);
-                numberOfCorrectAnswer++;
-            } else {
-                answerOfSubmission.setCorrect(false);
+    /**
+     * Fills {@code correctCount}/{@code questionCount} of graded submissions created before those
+     * columns existed, one chunk of ids per transaction.
+     */
+    public int backfillAnswerCounts(int batchSize) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        long afterId = 0L;
+        int updated = 0;
+        while (true) {
+            List<Long> ids = submissionRepository.findIdsMissingCountsAfter(afterId, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                break;
             }
-            submission.getAnswerOfSubmissions().add(answerOfSubmission);
+            updated += tx.execute(status -> submissionRepository.backfillCounts(ids));
+            afterId = ids.get(ids.size() - 1);
+            log.info("Backfilled answer counts of {} submissions", updated);
         }
+        return updated;
+    }
 
-        Double score = ((double) numberOfCorrectAnswer / (double) numberOfQuestion) * 10;
-        submission.setGrade(score);
-        submissionRepository.save(submission);
-        answerOfSubmissionRepository.saveAll(submission.getAnswerOfSubmissions());
+    private static double score(int correctCount, int questionCount) {
+        return questionCount == 0 ? 0.0 : ((double) correctCount / (double) questionCount) * 10;
     }
 
-    public ResponseDetailSubmissionDTO getSubmissionsBySubmissionId(Long SubmissionId, String userEmail) {
-        Submission submission = submissionRepository.findById(SubmissionId).orElse(null);
-        if (submission == null) {
-            throw new RuntimeException("bài nộp không tồn tại");
+    private String writeAnswers(List<SubmitSubmissionDTO.AnswerTheQuestion> answers) {
+        try {
+            return objectMapper.writeValueAsString(answers);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Không thể lưu câu trả lời", e);
         }
+    }
 
-        User user = userRepository.findByEmail(userEmail).orElse(null);
-        if (user == null) {
-            throw new RuntimeException("người dùng không tồn tại");
+    private List<SubmitSubmissionDTO.AnswerTheQuestion> readAnswers(String json) {
+        try {
+            return objectMapper.readValue(json, ANSWER_LIST);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Không thể đọc câu trả lời đã lưu", e);
         }
+    }
 
-        switch (user.getRole()) {
+    /**
+     * Access is checked on the caller stated by the access token; only the lock state is read,
+     * from {@link UserIdentityCache}.
+     */
+    public ResponseDetailSubmissionDTO getSubmissionsBySubmissionId(Long SubmissionId, CurrentUser user) {
+        requireActive(user);
+        Submission submission = submissionRepository.findWithAnswersById(SubmissionId).orElse(null);
+        if (submission == null) {
+            throw new RuntimeException("bài nộp không tồn tại");
+        }
+
+        // Kiểm tra quyền chỉ bằng id, không load assignment -> course -> teacher
+        switch (user.role()) {
             case STUDENT:
-                if (!submission.getStudent().getUserId().equals(user.getUserId())) {
+                if (!submission.getStudent().getUserId().equals(user.userId())) {
                     throw new RuntimeException("Bạn không có quyền xem bài nộp này");
                 }
                 break;
             case TEACHER:
-                if (!submission.getAssignment().getCourse().getTeacher().equals(user.getUserId())) {
+                if (!submissionRepository.existsByIdAndAssignmentCourseTeacherUserId(SubmissionId, user.userId())) {
                     throw new RuntimeException("Bạn không có quyền xem bài nộp này");
                 }
                 break;
@@ -126,63 +233,52 @@ public class SubmissionService {
         return ResponseDetailSubmissionDTO.fromSubmission(submission);
     }
 
-    public ResponseDetailSubmissionDTO getSubmissionsByAssigmentId(Long assignmentId, String userEmail) {
-        Assignment assignment = assignmentRepository.findById(assignmentId).orElse(null);
-        if (assignment == null) {
+    public ResponseDetailSubmissionDTO getSubmissionsByAssigmentId(Long assignmentId, CurrentUser user) {
+        requireActive(user);
+        if (!assignmentRepository.existsById(assignmentId)) {
             throw new RuntimeException("Bài tập không tồn tại");
         }
 
-        User user = userRepository.findByEmail(userEmail).orElse(null);
-        if (user == null) {
-            throw new RuntimeException("người dùng không tồn tại");
-        }
-
-        Submission submission = submissionRepository.findByAssignmentAndStudent(assignment, user).orElse(null);
+        // Chỉ tìm bài nộp của chính user nên không cần kiểm tra quyền thêm
+        Submission submission = submissionRepository
+                .findWithAnswersByAssignmentIdAndStudentUserId(assignmentId, user.userId()).orElse(null);
         if (submission == null) {
             // Trả về DTO rỗng báo rằng user chưa nộp bài
             return ResponseDetailSubmissionDTO.empty();
         }
+        return ResponseDetailSubmissionDTO.fromSubmission(submission);
+    }
 
-        switch (user.getRole()) {
-            case STUDENT:
-                if (!submission.getStudent().getUserId().equals(user.getUserId())) {
-                    throw new RuntimeException("Bạn không có quyền xem bài nộp này");
-                }
-                break;
-            case TEACHER:
-                if (!submission.getAssignment().getCourse().getTeacher().equals(user.getUserId())) {
-                    throw new RuntimeException("Bạn không có quyền xem bài nộp này");
-                }
-                break;
-            default:
-                break;
+    // token của tài khoản bị khóa vẫn hợp lệ tới khi hết hạn
+    private void requireActive(CurrentUser user) {
+        if (userIdentityCache.findActive(user.email()).isEmpty()) {
+            throw new RuntimeException("người dùng không tồn tại");
         }
-        return ResponseDetailSubmissionDTO.fromSubmission(submission);
     }
 
-    public List<SubmissionListItemDTO> getSubmissionsByAssignment(Long assignmentId) {
-        List<Submission> submissions = submissionRepository.findByAssignmentId(assignmentId);
-        List<SubmissionListItemDTO> result = new ArrayList<>();
-
-        for (Submission submission : submissions) {
-            if (submission.getStudent() == null) continue;
-            if (submission.getAnswerOfSubmissions() == null) submission.setAnswerOfSubmissions(new ArrayList<>());
-
-            int total = submission.getAnswerOfSubmissions().size();
-            int correct = (int) submission.getAnswerOfSubmissions().stream()
-                    .filter(answer -> answer.isCorrect())
-                    .count();
-
-            SubmissionListItemDTO dto = new SubmissionListItemDTO(
-                    submission.getStudent().getName(),
-                    submission.getStudent().getEmail(),
-                    submission.getSubmittedAt(),
-                    submission.getGrade(),
-                    correct,
-                    total
-            );
-            result.add(dto);
-        }
-        return result;
+    /**
+     * Paged roster of an assignment, read with one grouped query. Only {@code grade} and
+     * {@code submittedAt} are accepted as sort keys; anything else falls back to submission time.
+     */
+    public ResultPaginationDTO getSubmissionsByAssignment(Long assignmentId, Pageable pageable) {
+        Sort sort = Sort.by(pageable.getSort().stream()
+                .filter(order -> ROSTER_SORT_KEYS.contains(order.getProperty()))
+                .toList());
+        if (sort.isUnsorted()) {
+            sort = Sort.by("submittedAt");
+        }
+        Page<SubmissionListItemDTO> page = submissionRepository.findRosterByAssignmentId(assignmentId,
+                PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort));
+
+        ResultPaginationDTO resultPaginationDTO = new ResultPaginationDTO();
+        ResultPaginationDTO.Meta mt = new ResultPaginationDTO.Meta();
+        mt.setCurrentPage(page.getNumber());
+        mt.setPageSize(page.getSize());
+        mt.setTotalPages(page.getTotalPages());
+        mt.setTotalElements((int) page.getTotalElements());
+
+        resultPaginationDTO.setMeta(mt);
+        resultPaginationDTO.setResult(page.getContent());
+        return resultPaginationDTO;
     }
 }
\ No newline at end of file
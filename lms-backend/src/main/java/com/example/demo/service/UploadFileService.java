@@ -1,94 +1,567 @@
 package com.example.demo.service;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.multipart.MultipartFile;
-import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.core.async.ResponsePublisher;
 import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
 import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class UploadFileService {
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024; // giới hạn tối thiểu của S3
+
     private final S3Client s3Client;
+    private final S3AsyncClient s3AsyncClient;
+    private final S3Presigner s3Presigner;
+    private final DocumentFileCache documentFileCache;
     @Value("${aws.s3.bucket}")
     private String bucketName;
 
-    public String uploadFile(MultipartFile file, String folder) throws IOException {
-        String originalFilename = file.getOriginalFilename();
+    // File từ ngưỡng này trở lên được upload theo multipart
+    @Value("${aws.s3.multipart-threshold:16MB}")
+    private DataSize multipartThreshold;
+
+    @Value("${aws.s3.part-size:8MB}")
+    private DataSize partSize;
+
+    // Số part của một file được upload song song (bộ nhớ mỗi upload <= part-size x số này)
+    @Value("${aws.s3.upload-concurrency:4}")
+    private int uploadConcurrency;
+
+    @Value("${aws.s3.upload-threads:16}")
+    private int uploadThreads;
+
+    @Value("${aws.s3.presign-upload-ttl:15m}")
+    private Duration presignUploadTtl;
+
+    @Value("${aws.s3.presign-download-ttl:5m}")
+    private Duration presignDownloadTtl;
+
+    private ExecutorService partUploadExecutor;
+
+    @PostConstruct
+    void startPartUploadExecutor() {
+        if (partSize.toBytes() < MIN_PART_SIZE) {
+            throw new IllegalStateException("aws.s3.part-size must be at least 5MB");
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        partUploadExecutor = Executors.newFixedThreadPool(uploadThreads, runnable -> {
+            Thread thread = new Thread(runnable, "s3-part-upload-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stopPartUploadExecutor() {
+        partUploadExecutor.shutdown();
+    }
+
+    /**
+     * Name of the stored file inside its folder, and the ETag S3 assigned to it.
+     */
+    public record UploadedFile(String filename, String eTag) {
+    }
+
+    /**
+     * Sinh tên file mới: timestamp + random + extension của file gốc.
+     */
+    public String uniqueFilename(String originalFilename) {
         String extension = "";
 
         if (originalFilename != null && originalFilename.contains(".")) {
             extension = originalFilename.substring(originalFilename.lastIndexOf("."));
         }
 
-        // Sinh tên file mới: timestamp + random + extension
         int random = new Random().nextInt(10000); // 0 -> 9999
-        String uniqueFilename = System.currentTimeMillis() + "_" + random + extension;
+        return System.currentTimeMillis() + "_" + random + extension;
+    }
+
+    /**
+     * Presigned PUT for a direct browser-to-S3 upload. Content type and length are part of the
+     * signature, so the client must send exactly the returned headers.
+     */
+    public PresignedPutObjectRequest presignUpload(String folder, String filename, String contentType, long contentLength) {
+        return s3Presigner.presignPutObject(
+                PutObjectPresignRequest.builder()
+                        .signatureDuration(presignUploadTtl)
+                        .putObjectRequest(
+                                PutObjectRequest.builder()
+                                        .bucket(bucketName)
+                                        .key(folder + "/" + filename)
+                                        .contentType(contentType)
+                                        .contentLength(contentLength)
+                                        .build()
+                        )
+                        .build()
+        );
+    }
+
+    /**
+     * Short-lived presigned GET that makes S3 send the object as an attachment named {@code downloadName}.
+     */
+    public URL presignDownload(String folder, String filename, String downloadName) {
+        return s3Presigner.presignGetObject(
+                GetObjectPresignRequest.builder()
+                        .signatureDuration(presignDownloadTtl)
+                        .getObjectRequest(
+                                GetObjectRequest.builder()
+                                        .bucket(bucketName)
+                                        .key(folder + "/" + filename)
+                                        .responseContentDisposition(ContentDisposition.attachment()
+                                                .filename(downloadName, StandardCharsets.UTF_8)
+                                                .build()
+                                                .toString())
+                                        .build()
+                        )
+                        .build()
+        ).url();
+    }
+
+    /**
+     * @return metadata of the object, or empty if it does not exist
+     */
+    public Optional<HeadObjectResponse> headObject(String folder, String filename) {
+        try {
+            return Optional.of(s3Client.headObject(builder -> builder.bucket(bucketName).key(folder + "/" + filename)));
+        } catch (NoSuchKeyException e) {
+            return Optional.empty();
+        }
+    }
 
-        // Key trong S3 = folder + "/" + tên file duy nhất
-        String key = folder + "/" + uniqueFilename;
+    /**
+     * Streams the multipart file to S3 without copying it into a {@code byte[]}. Files below
+     * {@code aws.s3.multipart-threshold} go in one PUT with a known length; larger ones are sent
+     * as a multipart upload with up to {@code aws.s3.upload-concurrency} parts in flight.
+     *
+     * @return ETag of the stored object
+     */
+    public String putObject(String key, MultipartFile file) throws IOException {
+        return putObject(key, file, null);
+    }
+
+    /**
+     * Same as {@link #putObject(String, MultipartFile)}; a known {@code sha256} digest is sent
+     * with a single PUT so that S3 rejects the object if the bytes it received differ.
+     */
+    public String putObject(String key, MultipartFile file, byte[] sha256) throws IOException {
+        long size = file.getSize();
+        if (size < multipartThreshold.toBytes()) {
+            PutObjectRequest.Builder request = PutObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .contentType(file.getContentType())
+                    .contentLength(size);
+            if (sha256 != null) {
+                request.checksumSHA256(Base64.getEncoder().encodeToString(sha256));
+            }
+            try (InputStream in = file.getInputStream()) {
+                return s3Client.putObject(request.build(), RequestBody.fromInputStream(in, size)).eTag();
+            }
+        }
+        return multipartUpload(key, file);
+    }
 
-        s3Client.putObject(
-                PutObjectRequest.builder()
+    /**
+     * SHA-256 of the multipart file, read from the container's temporary copy before anything
+     * is sent to S3.
+     */
+    public byte[] sha256(MultipartFile file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return digest.digest();
+    }
+
+    private String multipartUpload(String key, MultipartFile file) throws IOException {
+        String uploadId = s3Client.createMultipartUpload(
+                CreateMultipartUploadRequest.builder()
                         .bucket(bucketName)
                         .key(key)
+                        .contentType(file.getContentType())
+                        .build()
+        ).uploadId();
+
+        int partBytes = (int) partSize.toBytes();
+        Semaphore inFlight = new Semaphore(uploadConcurrency);
+        List<Future<CompletedPart>> parts = new ArrayList<>();
+        try (InputStream in = file.getInputStream()) {
+            int partNumber = 1;
+            while (true) {
+                // chỉ đọc part tiếp theo khi còn slot, nên tối đa uploadConcurrency buffer trong bộ nhớ
+                inFlight.acquire();
+                // một part đã lỗi: dừng ngay, không đọc và gửi phần còn lại của file
+                throwIfAnyFailed(parts);
+                byte[] buffer = in.readNBytes(partBytes);
+                if (buffer.length == 0) {
+                    inFlight.release();
+                    break;
+                }
+                int number = partNumber++;
+                parts.add(partUploadExecutor.submit(() -> {
+                    try {
+                        return uploadPart(key, uploadId, number, buffer);
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+                if (buffer.length < partBytes) {
+                    break;
+                }
+            }
+
+            List<CompletedPart> completedParts = new ArrayList<>(parts.size());
+            for (Future<CompletedPart> part : parts) {
+                completedParts.add(part.get());
+            }
+            return s3Client.completeMultipartUpload(
+                    CompleteMultipartUploadRequest.builder()
+                            .bucket(bucketName)
+                            .key(key)
+                            .uploadId(uploadId)
+                            .multipartUpload(CompletedMultipartUpload.builder().parts(completedParts).build())
+                            .build()
+            ).eTag();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abortMultipartUpload(key, uploadId, parts);
+            throw new IOException("Upload interrupted: " + key, e);
+        } catch (ExecutionException e) {
+            abortMultipartUpload(key, uploadId, parts);
+            throw new IOException("Upload part failed: " + key, e.getCause());
+        } catch (IOException | RuntimeException e) {
+            abortMultipartUpload(key, uploadId, parts);
+            throw e;
+        }
+    }
+
+    /**
+     * Rethrows the failure of the first finished part that failed; parts still running are not
+     * waited for.
+     */
+    private static void throwIfAnyFailed(List<Future<CompletedPart>> parts) throws ExecutionException, InterruptedException {
+        for (Future<CompletedPart> part : parts) {
+            if (part.isDone()) {
+                part.get();
+            }
+        }
+    }
+
+    private CompletedPart uploadPart(String key, String uploadId, int partNumber, byte[] buffer) {
+        UploadPartResponse response = s3Client.uploadPart(
+                UploadPartRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .uploadId(uploadId)
+                        .partNumber(partNumber)
+                        .contentLength((long) buffer.length)
                         .build(),
-                RequestBody.fromBytes(file.getBytes())
+                RequestBody.fromBytes(buffer)
         );
-
-        return uniqueFilename;
+        return CompletedPart.builder().partNumber(partNumber).eTag(response.eTag()).build();
     }
-    public ResponseEntity<byte[]> downloadFile(String folder, String filename
-    ) {
-        String key = folder + "/" + filename;
+
+    private void abortMultipartUpload(String key, String uploadId, List<Future<CompletedPart>> parts) {
+        parts.forEach(part -> part.cancel(true));
         try {
-            ResponseBytes<GetObjectResponse> objectBytes = s3Client.getObjectAsBytes(
-                    GetObjectRequest.builder()
+            s3Client.abortMultipartUpload(
+                    AbortMultipartUploadRequest.builder()
                             .bucket(bucketName)
                             .key(key)
+                            .uploadId(uploadId)
                             .build()
             );
+        } catch (RuntimeException e) {
+            log.warn("Could not abort multipart upload {} of {}", uploadId, key, e);
+        }
+    }
 
-            return ResponseEntity.ok()
-                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                    .header("Content-Disposition", "attachment; filename=\"" + filename + "\"")
-                    .body(objectBytes.asByteArray());
+    /**
+     * Streams the object straight from the S3 connection to the response, passing through
+     * its length, ETag and content type; nothing is buffered in the heap.
+     * <p>
+     * {@code If-None-Match}/{@code If-Modified-Since} are answered with 304 from the given
+     * {@code eTag}/{@code lastModified} (either may be null) without calling S3. A single
+     * {@code Range} is forwarded to S3 and answered with 206, unless an {@code If-Range}
+     * validator no longer matches; multi-range requests get the whole object.
+     * <p>
+     * The GET goes through the async client and the body comes back as a publisher of the
+     * buffers read from the S3 connection; {@code FileDownloadReturnValueHandler} writes them
+     * with non-blocking servlet I/O, so no thread is held for the length of the transfer.
+     */
+    public CompletableFuture<FileDownload> downloadFile(String folder, String filename, HttpHeaders requestHeaders,
+                                                        String eTag, Instant lastModified) {
+        if (isNotModified(requestHeaders, eTag, lastModified)) {
+            ResponseEntity.HeadersBuilder<?> notModified = ResponseEntity.status(HttpStatus.NOT_MODIFIED);
+            if (eTag != null) {
+                notModified.eTag(eTag);
+            }
+            if (lastModified != null) {
+                notModified.lastModified(lastModified);
+            }
+            return CompletableFuture.completedFuture(FileDownload.of(notModified.build()));
+        }
 
-        } catch (Exception e) {
-            return ResponseEntity.status(404).body(null);
+        String key = folder + "/" + filename;
+        if (documentFileCache.isEnabled() && eTag != null) {
+            // miss: chờ bản sao đang được tải (không giữ luồng), quá hạn thì tự đọc từ S3
+            return documentFileCache.get(key, eTag)
+                    .thenCompose(file -> file
+                            .flatMap(cached -> serveCachedFile(cached, filename, requestHeaders, eTag, lastModified))
+                            .map(CompletableFuture::completedFuture)
+                            .orElseGet(() -> downloadFromS3(key, filename, requestHeaders, eTag, lastModified)));
         }
+        return downloadFromS3(key, filename, requestHeaders, eTag, lastModified);
     }
-    public ResponseEntity<String> deleteFile(String folder,String filename)
-    {
-        String key = folder + "/" + filename;
+
+    private CompletableFuture<FileDownload> downloadFromS3(String key, String filename, HttpHeaders requestHeaders,
+                                                           String eTag, Instant lastModified) {
+        GetObjectRequest.Builder request = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key);
+        String range = rangeToFetch(requestHeaders, eTag, lastModified);
+        if (range != null) {
+            request.range(range);
+        }
+        // completes as soon as the response headers are in, the body is read as it is written out
+        return s3AsyncClient.getObject(request.build(), AsyncResponseTransformer.toPublisher())
+                .handle((object, error) -> {
+                    if (error != null) {
+                        return errorResponse(unwrap(error));
+                    }
+                    return objectResponse(object, filename, lastModified);
+                });
+    }
+
+    private static FileDownload errorResponse(Throwable error) {
+        if (error instanceof NoSuchKeyException) {
+            return FileDownload.of(ResponseEntity.status(404).build());
+        }
+        if (error instanceof S3Exception e
+                && e.statusCode() == HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value()) {
+            return FileDownload.of(ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                    .build());
+        }
+        throw error instanceof RuntimeException runtime ? runtime : new CompletionException(error);
+    }
+
+    private static FileDownload objectResponse(ResponsePublisher<GetObjectResponse> object, String filename,
+                                               Instant lastModified) {
+        GetObjectResponse metadata = object.response();
+        boolean partial = metadata.contentRange() != null;
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(partial ? HttpStatus.PARTIAL_CONTENT : HttpStatus.OK)
+                .contentType(contentTypeOf(metadata.contentType()))
+                .header("Content-Disposition", "attachment; filename=\"" + filename + "\"")
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (partial) {
+            response.header(HttpHeaders.CONTENT_RANGE, metadata.contentRange());
+        }
+        if (metadata.contentLength() != null) {
+            response.contentLength(metadata.contentLength());
+        }
+        if (metadata.eTag() != null) {
+            response.eTag(metadata.eTag());
+        }
+        if (lastModified != null) {
+            response.lastModified(lastModified);
+        }
+        return FileDownload.of(response.build(), object);
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    /**
+     * Same response as the S3 path, read from the local copy in chunks as the client takes them.
+     * Empty if the file was evicted before it could be opened.
+     */
+    private Optional<FileDownload> serveCachedFile(DocumentFileCache.CachedFile file, String filename,
+                                                   HttpHeaders requestHeaders, String eTag, Instant lastModified) {
+        long length = file.size();
+        long start = 0;
+        long end = length - 1;
+        String range = rangeToFetch(requestHeaders, eTag, lastModified);
+        if (range != null) {
+            try {
+                HttpRange httpRange = HttpRange.parseRanges(range).get(0);
+                start = httpRange.getRangeStart(length);
+                end = httpRange.getRangeEnd(length);
+            } catch (IllegalArgumentException e) {
+                return Optional.of(FileDownload.of(ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + length)
+                        .build()));
+            }
+        }
+
+        FileChannel channel;
+        try {
+            // open now so a concurrent eviction cannot remove the file under us
+            channel = FileChannel.open(file.path(), StandardOpenOption.READ);
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+
+        long position = start;
+        long count = end - start + 1;
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(range != null ? HttpStatus.PARTIAL_CONTENT : HttpStatus.OK)
+                .contentType(contentTypeOf(file.contentType()))
+                .header("Content-Disposition", "attachment; filename=\"" + filename + "\"")
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .contentLength(count)
+                .eTag(eTag);
+        if (range != null) {
+            response.header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+        if (lastModified != null) {
+            response.lastModified(lastModified);
+        }
+        return Optional.of(FileDownload.of(response.build(), new FileRegionPublisher(channel, position, count)));
+    }
+
+    private static boolean isNotModified(HttpHeaders requestHeaders, String eTag, Instant lastModified) {
+        List<String> ifNoneMatch = requestHeaders.getIfNoneMatch();
+        if (!ifNoneMatch.isEmpty()) {
+            // If-None-Match takes precedence over If-Modified-Since (RFC 9110, 13.1.3)
+            return eTag != null && ifNoneMatch.stream()
+                    .anyMatch(tag -> tag.equals("*") || weakETag(tag).equals(weakETag(eTag)));
+        }
+        long ifModifiedSince = requestHeaders.getIfModifiedSince();
+        return ifModifiedSince != -1 && lastModified != null
+                && lastModified.getEpochSecond() * 1000 <= ifModifiedSince;
+    }
+
+    private static String rangeToFetch(HttpHeaders requestHeaders, String eTag, Instant lastModified) {
+        String range = requestHeaders.getFirst(HttpHeaders.RANGE);
+        if (range == null || !range.startsWith("bytes=") || range.contains(",")) {
+            return null;
+        }
+        String ifRange = requestHeaders.getFirst(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return range;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // If-Range requires a strong comparison, a weak validator never matches
+            return eTag != null && ifRange.equals(eTag) ? range : null;
+        }
         try {
-            // Kiểm tra file tồn tại trước (tùy chọn)
-            s3Client.headObject(builder -> builder.bucket(bucketName).key(key));
+            long date = requestHeaders.getFirstDate(HttpHeaders.IF_RANGE);
+            return lastModified != null && lastModified.getEpochSecond() * 1000 == date ? range : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
 
-            // Xóa file
-            s3Client.deleteObject(
-                    DeleteObjectRequest.builder()
-                            .bucket(bucketName)
-                            .key(key)
-                            .build()
-            );
-            return ResponseEntity.ok("Deleted: " + key);
-        } catch (software.amazon.awssdk.services.s3.model.NoSuchKeyException e) {
-            return ResponseEntity.status(404).body("File not found: " + key);
-        } catch (Exception e) {
-            return ResponseEntity.status(500).body("Error deleting file: " + e.getMessage());
+    private static String weakETag(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    private static MediaType contentTypeOf(String contentType) {
+        if (contentType == null) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
+        try {
+            return MediaType.parseMediaType(contentType);
+        } catch (InvalidMediaTypeException e) {
+            return MediaType.APPLICATION_OCTET_STREAM;
         }
     }
+
+    /**
+     * Deletes one object through the async client, without holding the calling thread.
+     */
+    public CompletableFuture<ResponseEntity<String>> deleteFile(String folder, String filename) {
+        String key = folder + "/" + filename;
+        // Kiểm tra file tồn tại trước (tùy chọn), rồi xóa file
+        return s3AsyncClient.headObject(builder -> builder.bucket(bucketName).key(key))
+                .thenCompose(head -> s3AsyncClient.deleteObject(
+                        DeleteObjectRequest.builder()
+                                .bucket(bucketName)
+                                .key(key)
+                                .build()
+                ))
+                .handle((deleted, error) -> {
+                    if (error == null) {
+                        return ResponseEntity.ok("Deleted: " + key);
+                    }
+                    Throwable cause = unwrap(error);
+                    if (cause instanceof NoSuchKeyException) {
+                        return ResponseEntity.status(404).body("File not found: " + key);
+                    }
+                    return ResponseEntity.status(500).body("Error deleting file: " + cause.getMessage());
+                });
+    }
 }
@@ -0,0 +1,73 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.UserRepository;
+import com.example.demo.repository.projection.UserIdentity;
+import com.example.demo.util.errors.CustomException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * {@link UserIdentity} per email, so access checks do not read the user row on every request.
+ * Entries live at most {@code lms.security.identity-cache-ttl}; {@link UserService} evicts them when
+ * it changes a user, so locking an account takes effect on the next request. Access checks go
+ * through {@link #findActive}, which rejects locked accounts. Unknown emails are not cached. Hits and misses are published as the
+ * {@code userIdentities} cache metrics.
+ */
+@Component
+public class UserIdentityCache {
+    final private UserRepository userRepository;
+    final private Cache<String, UserIdentity> cache;
+
+    public UserIdentityCache(UserRepository userRepository, MeterRegistry meterRegistry,
+                             @Value("${lms.security.identity-cache-size:10000}") long maximumSize,
+                             @Value("${lms.security.identity-cache-ttl:5m}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "userIdentities");
+    }
+
+    public Optional<UserIdentity> find(String email) {
+        return Optional.ofNullable(cache.get(email, key -> userRepository.findIdentityByEmail(key).orElse(null)));
+    }
+
+    /**
+     * Same as {@link #find}, but throws when the account is locked: the access token of a locked
+     * user stays valid until it expires, so every check that reads the identity must refuse it.
+     */
+    public Optional<UserIdentity> findActive(String email) {
+        Optional<UserIdentity> identity = find(email);
+        if (identity.filter(UserIdentity::isLocked).isPresent()) {
+            throw new CustomException("Tài khoản đã bị khóa");
+        }
+        return identity;
+    }
+
+    /**
+     * Evicts now and again once the surrounding transaction completes, so a request that reloads
+     * the user in between cannot keep the old values cached.
+     */
+    public void evict(String email) {
+        cache.invalidate(email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidate(email);
+                }
+            });
+        }
+    }
+}
@@ -9,6 +9,7 @@
  import com.example.demo.dto.response.userDTO.ResUserDTO;
 
  import com.example.demo.repository.UserRepository;
+ import com.example.demo.repository.SubmissionIntakeRepository;
  import com.example.demo.util.errors.CustomException;
  import com.example.demo.util.errors.DuplicateResourceException;
  import com.example.demo.util.errors.ResourceNotFoundException;
@@ -37,6 +38,10 @@
      final private PasswordEncoder passwordEncoder;
      final private UploadFileService uploadFileService;
      private final S3Client s3Client;
+     private final StudentProgressService studentProgressService;
+     private final RefreshTokenService refreshTokenService;
+     private final UserIdentityCache userIdentityCache;
+     private final SubmissionIntakeRepository submissionIntakeRepository;
      @Value("${aws.s3.bucket}")
      private String bucketName;
 
@@ -113,6 +118,7 @@
          }
 
          user = userRepository.save(user);
+         userIdentityCache.evict(user.getEmail());
          return ResUserDTO.fromUser(user);
      }
 
@@ -147,7 +153,12 @@
      public void deleteUser(String userId) {
          User user = userRepository.findById(userId)
                  .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
+         studentProgressService.onStudentDeleted(user.getUserId());
+         refreshTokenService.revokeAll(user.getUserId());
+         // bài nộp của user bị xóa theo cascade, bỏ luôn khỏi hàng đợi chấm
+         submissionIntakeRepository.deleteByStudentId(user.getUserId());
          userRepository.delete(user);
+         userIdentityCache.evict(user.getEmail());
      }
 
      @Transactional
@@ -157,6 +168,9 @@
 
          user.setLocked(true);
          user = userRepository.save(user);
+         // đăng xuất trên mọi thiết bị
+         refreshTokenService.revokeAll(user.getUserId());
+         userIdentityCache.evict(user.getEmail());
 
          return ResUserDTO.fromUser(user);
      }
@@ -169,6 +183,7 @@
 
          user.setLocked(false);
          user = userRepository.save(user);
+         userIdentityCache.evict(user.getEmail());
 
          return ResUserDTO.fromUser(user);
      }
@@ -192,5 +207,6 @@
              user.setPhone(phone);
          }
          userRepository.save(user);
+         userIdentityCache.evict(user.getEmail());
      }
  }
\ No newline at end of file
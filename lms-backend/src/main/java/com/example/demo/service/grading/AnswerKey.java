@@ -0,0 +1,95 @@
+package com.example.demo.service.grading;
+
+import com.example.demo.domain.enumeration.Answer;
+import com.example.demo.dto.request.submission.SubmitSubmissionDTO;
+import com.example.demo.repository.projection.QuestionAnswer;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable {@code questionId -> correctAnswer} index of one assignment: question ids sorted in a
+ * {@code long[]} and the matching correct answers as ordinals in a {@code byte[]}.
+ */
+public final class AnswerKey {
+    static final byte NO_ANSWER = -1;
+
+    private final long[] questionIds;
+    private final byte[] correctAnswers;
+
+    private AnswerKey(long[] questionIds, byte[] correctAnswers) {
+        this.questionIds = questionIds;
+        this.correctAnswers = correctAnswers;
+    }
+
+    /**
+     * @param rows the assignment's questions, ordered by id
+     */
+    public static AnswerKey of(List<QuestionAnswer> rows) {
+        long[] ids = new long[rows.size()];
+        byte[] answers = new byte[rows.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = rows.get(i).getId();
+            answers[i] = ordinalOf(rows.get(i).getCorrectAnswer());
+        }
+        return new AnswerKey(ids, answers);
+    }
+
+    public int size() {
+        return questionIds.length;
+    }
+
+    /**
+     * @return position of the question in this key, or a negative value if it is not part of it
+     */
+    public int indexOf(long questionId) {
+        return Arrays.binarySearch(questionIds, questionId);
+    }
+
+    /**
+     * Checks that every answer refers to a question of this assignment, without grading.
+     *
+     * @throws IllegalArgumentException if an answer refers to a question outside this assignment
+     */
+    public void validate(List<SubmitSubmissionDTO.AnswerTheQuestion> answers) {
+        for (SubmitSubmissionDTO.AnswerTheQuestion answer : answers) {
+            requireIndex(answer.getQuestionId());
+        }
+    }
+
+    /**
+     * Grades the answers in request order.
+     *
+     * @throws IllegalArgumentException if an answer refers to a question outside this assignment
+     */
+    public GradedAnswers grade(List<SubmitSubmissionDTO.AnswerTheQuestion> answers) {
+        int n = answers.size();
+        long[] ids = new long[n];
+        byte[] given = new byte[n];
+        boolean[] correct = new boolean[n];
+        int correctCount = 0;
+        for (int i = 0; i < n; i++) {
+            SubmitSubmissionDTO.AnswerTheQuestion answer = answers.get(i);
+            int index = requireIndex(answer.getQuestionId());
+            ids[i] = questionIds[index];
+            given[i] = ordinalOf(answer.getAnswer());
+            correct[i] = given[i] != NO_ANSWER && given[i] == correctAnswers[index];
+            if (correct[i]) {
+                correctCount++;
+            }
+        }
+        return new GradedAnswers(ids, given, correct, correctCount);
+    }
+
+    private int requireIndex(Long questionId) {
+        int index = questionId == null ? -1 : indexOf(questionId);
+        if (index < 0) {
+            throw new IllegalArgumentException("Câu hỏi không tồn tại trong bài tập");
+        }
+        return index;
+    }
+
+    private static byte ordinalOf(Answer answer) {
+        return answer == null ? NO_ANSWER : (byte) answer.ordinal();
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.demo.service.grading;
+
+import com.example.demo.repository.QuestionRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * {@link AnswerKey} per assignment id. A miss reads only {@code (id, correctAnswer)} of the
+ * assignment's questions; hits and misses are published as the {@code answerKeys} cache metrics.
+ */
+@Component
+public class AnswerKeyCache {
+    final private QuestionRepository questionRepository;
+    final private Cache<Long, AnswerKey> cache;
+
+    public AnswerKeyCache(QuestionRepository questionRepository, MeterRegistry meterRegistry,
+                          @Value("${lms.grading.answer-key-cache-size:2000}") long maximumSize) {
+        this.questionRepository = questionRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "answerKeys");
+    }
+
+    public AnswerKey get(Long assignmentId) {
+        return cache.get(assignmentId, id -> AnswerKey.of(questionRepository.findAnswerKeyByAssignmentId(id)));
+    }
+
+    /**
+     * Evicts now and again once the surrounding transaction commits, so a grading request that
+     * reloads the key in between cannot keep the old questions cached.
+     */
+    public void invalidate(Long assignmentId) {
+        cache.invalidate(assignmentId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidate(assignmentId);
+                }
+            });
+        }
+    }
+}
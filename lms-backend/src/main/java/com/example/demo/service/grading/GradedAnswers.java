@@ -0,0 +1,17 @@
+package com.example.demo.service.grading;
+
+/**
+ * Result of {@link AnswerKey#grade}: parallel arrays, one slot per submitted answer.
+ *
+ * @param answers ordinal of the chosen answer, or {@code -1} when left empty
+ */
+public record GradedAnswers(long[] questionIds, byte[] answers, boolean[] correct, int correctCount) {
+
+    public int size() {
+        return questionIds.length;
+    }
+
+    public boolean hasAnswer(int i) {
+        return answers[i] != AnswerKey.NO_ANSWER;
+    }
+}
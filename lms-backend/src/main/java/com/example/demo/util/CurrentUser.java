@@ -0,0 +1,10 @@
+package com.example.demo.util;
+
+import com.example.demo.domain.enumeration.Role;
+
+/**
+ * Caller of the current request as stated by its access token ({@code user.id}, {@code sub},
+ * {@code role} claims), available without reading the {@code User} row.
+ */
+public record CurrentUser(String userId, String email, Role role) {
+}
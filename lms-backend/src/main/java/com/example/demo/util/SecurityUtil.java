@@ -1,5 +1,6 @@
 package com.example.demo.util;
 
+import com.example.demo.domain.enumeration.Role;
 import com.example.demo.dto.response.ResLoginDTO;
 import com.nimbusds.jose.util.Base64;
 import lombok.extern.slf4j.Slf4j;
@@ -16,6 +17,7 @@ import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.Map;
 import java.util.Optional;
 
 @Slf4j
@@ -73,7 +75,10 @@ public class SecurityUtil {
         return null;
     }
 
-    public String createRefreshToken(String email, ResLoginDTO dto) {
+    /**
+     * @param jti random id of the token, the key of its server-side record
+     */
+    public String createRefreshToken(String email, ResLoginDTO dto, String jti) {
         ResLoginDTO.UserInsideToken userToken = new ResLoginDTO.UserInsideToken(
                 dto.getUser().getId(),
                 dto.getUser().getEmail(),
@@ -86,6 +91,7 @@ public class SecurityUtil {
                 .issuedAt(now)
                 .expiresAt(validity)
                 .subject(email)
+                .id(jti)
                 .claim("user", userToken)
                 .build();
 
@@ -93,6 +99,23 @@ public class SecurityUtil {
         return this.jwtEncoder.encode(JwtEncoderParameters.from(jwsHeader, claims)).getTokenValue();
     }
 
+    /**
+     * Id, email and role of the caller, taken from the verified access token of the request.
+     * Empty if the request is not authenticated with one of our access tokens.
+     */
+    public static Optional<CurrentUser> getCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof Jwt jwt)) {
+            return Optional.empty();
+        }
+        Map<String, Object> user = jwt.getClaimAsMap("user");
+        String role = jwt.getClaimAsString("role");
+        if (user == null || user.get("id") == null || role == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new CurrentUser(user.get("id").toString(), jwt.getSubject(), Role.valueOf(role)));
+    }
+
     public static Optional<String> getCurrentUserLogin() {
         SecurityContext securityContext = SecurityContextHolder.getContext();
         return Optional.ofNullable(extractPrincipal(securityContext.getAuthentication()));
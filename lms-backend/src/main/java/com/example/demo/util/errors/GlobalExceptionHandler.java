@@ -3,8 +3,11 @@ package com.example.demo.util.errors;
 
 import com.example.demo.dto.response.ApiResponse;
 import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -90,6 +93,25 @@ public class GlobalExceptionHandler {
         res.setMessage("Thông tin đăng nhập không hợp lệ ...");
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(res);
     }
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<ApiResponse<Object>> handleServiceOverloaded(ServiceOverloadedException ex) {
+        ApiResponse<Object> res = new ApiResponse<>();
+        res.setStatusCode(Integer.toString(HttpStatus.SERVICE_UNAVAILABLE.value())); // 503
+        res.setError(ex.getMessage());
+        res.setMessage(ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(res);
+    }
+    // Hàng đợi của MVC async executor đã đầy
+    @ExceptionHandler(TaskRejectedException.class)
+    public ResponseEntity<ApiResponse<Object>> handleTaskRejected(TaskRejectedException ex, HttpServletResponse response) {
+        if (!response.isCommitted()) {
+            // bỏ các header đã được ghi trước khi bị từ chối
+            response.reset();
+        }
+        return handleServiceOverloaded(new ServiceOverloadedException("Hệ thống đang quá tải, vui lòng thử lại sau"));
+    }
     @ExceptionHandler(SecurityException.class)
     public ResponseEntity<ApiResponse<Object>> handleSecurityException(SecurityException ex) {
         ApiResponse<Object> res = new ApiResponse<>();
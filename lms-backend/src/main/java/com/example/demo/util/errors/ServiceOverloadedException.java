@@ -0,0 +1,7 @@
+package com.example.demo.util.errors;
+
+public class ServiceOverloadedException extends RuntimeException {
+    public ServiceOverloadedException(String message) {
+        super(message);
+    }
+}
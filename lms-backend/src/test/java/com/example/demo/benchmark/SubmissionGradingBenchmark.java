@@ -0,0 +1,183 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.domain.AnswerOfSubmission;
+import com.example.demo.domain.Question;
+import com.example.demo.domain.enumeration.Answer;
+import com.example.demo.dto.request.submission.SubmitSubmissionDTO;
+import com.example.demo.repository.AnswerOfSubmissionBatchWriter;
+import com.example.demo.repository.projection.QuestionAnswer;
+import com.example.demo.service.grading.AnswerKey;
+import com.example.demo.service.grading.GradedAnswers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Grading and storing one submission: the old path (linear search over the assignment's questions
+ * per answer, then one IDENTITY insert per answer) against {@link AnswerKey} plus
+ * {@link AnswerOfSubmissionBatchWriter}. Both write to the same in-memory H2 table.
+ * <p>
+ * Run {@link #main} (e.g. from the IDE) after {@code mvn test-compile}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SubmissionGradingBenchmark {
+    private static final String CREATE_TABLE = "CREATE TABLE answer_of_submission (" +
+            "id BIGINT AUTO_INCREMENT PRIMARY KEY, question_id BIGINT NOT NULL, submission_id BIGINT NOT NULL, " +
+            "answer TINYINT, correct BOOLEAN NOT NULL)";
+    private static final String INSERT_SQL =
+            "INSERT INTO answer_of_submission (question_id, submission_id, answer, correct) VALUES (?, ?, ?, ?)";
+
+    @Param({"20", "100"})
+    private int questionCount;
+
+    private SingleConnectionDataSource dataSource;
+    private List<Question> questions;
+    private AnswerKey answerKey;
+    private List<SubmitSubmissionDTO.AnswerTheQuestion> answers;
+    private AnswerOfSubmissionBatchWriter batchWriter;
+    private long submissionId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:grading-benchmark;DB_CLOSE_DELAY=-1", "sa", "", true);
+        try (Statement statement = dataSource.getConnection().createStatement()) {
+            statement.execute(CREATE_TABLE);
+        }
+        batchWriter = new AnswerOfSubmissionBatchWriter(new JdbcTemplate(dataSource));
+
+        Random random = new Random(42);
+        Answer[] choices = Answer.values();
+        questions = new ArrayList<>(questionCount);
+        List<QuestionAnswer> rows = new ArrayList<>(questionCount);
+        answers = new ArrayList<>(questionCount);
+        for (int i = 0; i < questionCount; i++) {
+            Question question = new Question();
+            question.setId(1000L + i);
+            question.setCorrectAnswer(choices[random.nextInt(choices.length)]);
+            questions.add(question);
+            rows.add(row(question));
+            answers.add(new SubmitSubmissionDTO.AnswerTheQuestion(question.getId(), choices[random.nextInt(choices.length)]));
+        }
+        // học sinh trả lời không theo thứ tự câu hỏi
+        Collections.shuffle(answers, random);
+        answerKey = AnswerKey.of(rows);
+    }
+
+    @TearDown(Level.Iteration)
+    public void truncate() throws SQLException {
+        try (Statement statement = dataSource.getConnection().createStatement()) {
+            statement.execute("TRUNCATE TABLE answer_of_submission");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement statement = dataSource.getConnection().createStatement()) {
+            statement.execute("DROP TABLE answer_of_submission");
+        }
+        dataSource.destroy();
+    }
+
+    @Benchmark
+    public int perAnswerGradeAndInsert() throws SQLException {
+        long id = ++submissionId;
+        List<AnswerOfSubmission> graded = new ArrayList<>();
+        int correctCount = 0;
+        for (SubmitSubmissionDTO.AnswerTheQuestion answerDTO : answers) {
+            Question question = questions.stream()
+                    .filter(q -> q.getId().equals(answerDTO.getQuestionId()))
+                    .findFirst()
+                    .orElse(null);
+            if (question == null) {
+                throw new IllegalArgumentException("Câu hỏi không tồn tại trong bài tập");
+            }
+            AnswerOfSubmission answerOfSubmission = new AnswerOfSubmission();
+            answerOfSubmission.setQuestion(question);
+            answerOfSubmission.setAnswer(answerDTO.getAnswer());
+            answerOfSubmission.setCorrect(question.getCorrectAnswer().equals(answerDTO.getAnswer()));
+            if (answerOfSubmission.isCorrect()) {
+                correctCount++;
+            }
+            graded.add(answerOfSubmission);
+        }
+        // IDENTITY: Hibernate gửi từng INSERT riêng và đọc lại khóa sinh ra
+        Connection connection = dataSource.getConnection();
+        for (AnswerOfSubmission answer : graded) {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                ps.setLong(1, answer.getQuestion().getId());
+                ps.setLong(2, id);
+                if (answer.getAnswer() != null) {
+                    ps.setByte(3, (byte) answer.getAnswer().ordinal());
+                } else {
+                    ps.setNull(3, Types.TINYINT);
+                }
+                ps.setBoolean(4, answer.isCorrect());
+                ps.executeUpdate();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    keys.next();
+                    answer.setId(keys.getLong(1));
+                }
+            }
+        }
+        return correctCount;
+    }
+
+    @Benchmark
+    public int answerKeyAndBatchInsert() {
+        GradedAnswers graded = answerKey.grade(answers);
+        batchWriter.insertAll(++submissionId, graded);
+        return graded.correctCount();
+    }
+
+    private static QuestionAnswer row(Question question) {
+        return new QuestionAnswer() {
+            @Override
+            public Long getId() {
+                return question.getId();
+            }
+
+            @Override
+            public Answer getCorrectAnswer() {
+                return question.getCorrectAnswer();
+            }
+        };
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SubmissionGradingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.demo.controller;
+
+import com.example.demo.domain.RefreshToken;
+import com.example.demo.domain.User;
+import com.example.demo.domain.enumeration.Role;
+import com.example.demo.repository.RefreshTokenRepository;
+import com.example.demo.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Login latency under concurrent load, at the production BCrypt cost: {@code CLIENTS} clients on
+ * a fixed pool log in {@code LOGINS_PER_CLIENT} times each over HTTP. Prints p50/p99 for
+ * comparison between runs and checks that every login still reads its user row exactly once
+ * under contention (the query {@link AuthController#login} used to repeat).
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "lms.security.bcrypt-strength=10"
+})
+class AuthControllerLoginLoadTest {
+    private static final int CLIENTS = 16;
+    private static final int LOGINS_PER_CLIENT = 20;
+    private static final int WARMUP_LOGINS = 20;
+    private static final String PASSWORD = "secret123";
+    private static final long P99_BUDGET_MS = 2000;
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @LocalServerPort
+    private int port;
+
+    private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private ExecutorService clients;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < CLIENTS; i++) {
+            User user = new User();
+            user.setEmail(email(i));
+            user.setPassword(passwordEncoder.encode(PASSWORD));
+            user.setRole(Role.STUDENT);
+            user.setName("Load Test " + i);
+            userRepository.save(user);
+        }
+        clients = Executors.newFixedThreadPool(CLIENTS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        clients.shutdownNow();
+        refreshTokenRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentLoginLatency() throws Exception {
+        for (int i = 0; i < WARMUP_LOGINS; i++) {
+            assertThat(login(email(i % CLIENTS)).statusCode()).isEqualTo(200);
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<Callable<long[]>> tasks = new ArrayList<>();
+        for (int c = 0; c < CLIENTS; c++) {
+            String email = email(c);
+            tasks.add(() -> {
+                long[] latencies = new long[LOGINS_PER_CLIENT];
+                for (int i = 0; i < LOGINS_PER_CLIENT; i++) {
+                    long started = System.nanoTime();
+                    HttpResponse<String> response = login(email);
+                    latencies[i] = System.nanoTime() - started;
+                    assertThat(response.statusCode()).isEqualTo(200);
+                }
+                return latencies;
+            });
+        }
+        long[] all = new long[CLIENTS * LOGINS_PER_CLIENT];
+        int index = 0;
+        for (Future<long[]> result : clients.invokeAll(tasks)) {
+            for (long latency : result.get()) {
+                all[index++] = latency;
+            }
+        }
+        Arrays.sort(all);
+        long p50 = TimeUnit.NANOSECONDS.toMillis(percentile(all, 0.50));
+        long p99 = TimeUnit.NANOSECONDS.toMillis(percentile(all, 0.99));
+        System.out.printf("login x%d, %d clients: p50=%dms p99=%dms max=%dms%n",
+                all.length, CLIENTS, p50, p99, TimeUnit.NANOSECONDS.toMillis(all[all.length - 1]));
+
+        // mỗi lượt đăng nhập: đúng một lần đọc User, một dòng refresh token
+        assertThat(statistics.getEntityStatistics(User.class.getName()).getLoadCount()).isEqualTo(all.length);
+        assertThat(statistics.getEntityStatistics(RefreshToken.class.getName()).getInsertCount()).isEqualTo(all.length);
+        assertThat(p99).isLessThan(P99_BUDGET_MS);
+    }
+
+    private HttpResponse<String> login(String email) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"email\":\"" + email + "\",\"password\":\"" + PASSWORD + "\"}"))
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        return sorted[(int) Math.ceil(quantile * sorted.length) - 1];
+    }
+
+    private static String email(int i) {
+        return "load" + i + "@example.com";
+    }
+}
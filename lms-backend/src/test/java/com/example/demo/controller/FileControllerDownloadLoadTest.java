@@ -0,0 +1,177 @@
+package com.example.demo.controller;
+
+import com.example.demo.domain.enumeration.Role;
+import com.example.demo.dto.response.ResLoginDTO;
+import com.example.demo.util.SecurityUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.core.async.SdkPublisher;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Many concurrent downloads of a slow S3 object against 8 request threads and 8 MVC async
+ * threads. Each body takes about a second to arrive, so a thread per transfer would need at
+ * least {@code CLIENTS / 8} seconds; written without blocking, all of them finish in about one.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "server.tomcat.threads.max=8",
+        "server.tomcat.threads.min-spare=2",
+        "lms.mvc-async.threads=8",
+        "lms.mvc-async.queue-capacity=100"
+})
+class FileControllerDownloadLoadTest {
+    private static final int CLIENTS = 64;
+    private static final int CHUNKS = 20;
+    private static final int CHUNK_SIZE = 16 * 1024;
+    private static final long CHUNK_DELAY_MS = 50;
+
+    @MockitoBean
+    private S3AsyncClient s3AsyncClient;
+    @Autowired
+    private SecurityUtil securityUtil;
+    @LocalServerPort
+    private int port;
+
+    // đóng vai event loop của Netty: vài luồng phát chunk cho mọi kết nối
+    private ScheduledExecutorService ticker;
+    private ExecutorService clients;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ticker = Executors.newScheduledThreadPool(2);
+        clients = Executors.newFixedThreadPool(CLIENTS);
+        when(s3AsyncClient.getObject(any(GetObjectRequest.class), any(AsyncResponseTransformer.class)))
+                .thenAnswer(invocation -> {
+                    AsyncResponseTransformer<GetObjectResponse, Object> transformer = invocation.getArgument(1);
+                    CompletableFuture<Object> result = transformer.prepare();
+                    transformer.onResponse(GetObjectResponse.builder()
+                            .contentLength((long) CHUNKS * CHUNK_SIZE)
+                            .contentType("application/pdf")
+                            .eTag("\"stub\"")
+                            .build());
+                    transformer.onStream(SdkPublisher.adapt(slowBody()));
+                    return result;
+                });
+    }
+
+    @AfterEach
+    void tearDown() {
+        clients.shutdownNow();
+        ticker.shutdownNow();
+    }
+
+    @Test
+    void concurrentDownloadsDoNotHoldAThreadEach() throws Exception {
+        HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/file/download/documents/report.pdf"))
+                .header("Authorization", "Bearer " + accessToken())
+                .timeout(Duration.ofSeconds(30))
+                .build();
+
+        List<Callable<HttpResponse<byte[]>>> downloads = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            downloads.add(() -> httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray()));
+        }
+        long started = System.nanoTime();
+        List<Future<HttpResponse<byte[]>>> responses = clients.invokeAll(downloads);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        for (Future<HttpResponse<byte[]>> future : responses) {
+            HttpResponse<byte[]> response = future.get();
+            assertThat(response.statusCode()).isEqualTo(200);
+            assertThat(response.headers().firstValue("Content-Length")).hasValue(String.valueOf(CHUNKS * CHUNK_SIZE));
+            assertThat(response.body()).hasSize(CHUNKS * CHUNK_SIZE);
+        }
+        // mỗi file ~1s; giữ 1 luồng/lượt tải với 8 luồng thì cần >= 8s
+        assertThat(elapsedMs).isLessThan(CHUNKS * CHUNK_DELAY_MS * 4);
+    }
+
+    private String accessToken() {
+        ResLoginDTO dto = new ResLoginDTO();
+        dto.setUser(dto.new UserLogin("1", "load@example.com", "Load Test", Role.STUDENT));
+        dto.setRole(Role.STUDENT);
+        return securityUtil.createAccessToken("load@example.com", dto);
+    }
+
+    /**
+     * {@code CHUNKS} buffers, one every {@code CHUNK_DELAY_MS} while there is demand.
+     */
+    private Publisher<ByteBuffer> slowBody() {
+        return subscriber -> subscriber.onSubscribe(new Subscription() {
+            private final AtomicLong demand = new AtomicLong();
+            private final AtomicInteger sent = new AtomicInteger();
+            private final AtomicBoolean scheduled = new AtomicBoolean();
+            private volatile boolean cancelled;
+
+            @Override
+            public void request(long n) {
+                demand.addAndGet(n);
+                scheduleNext();
+            }
+
+            @Override
+            public void cancel() {
+                cancelled = true;
+            }
+
+            private void scheduleNext() {
+                if (cancelled || demand.get() == 0 || sent.get() >= CHUNKS || !scheduled.compareAndSet(false, true)) {
+                    return;
+                }
+                ticker.schedule(() -> {
+                    if (cancelled) {
+                        return;
+                    }
+                    if (demand.get() == 0) {
+                        scheduled.set(false);
+                        scheduleNext();
+                        return;
+                    }
+                    demand.decrementAndGet();
+                    int index = sent.incrementAndGet();
+                    scheduled.set(false);
+                    subscriber.onNext(ByteBuffer.wrap(new byte[CHUNK_SIZE]));
+                    if (index == CHUNKS) {
+                        subscriber.onComplete();
+                    } else {
+                        scheduleNext();
+                    }
+                }, CHUNK_DELAY_MS, TimeUnit.MILLISECONDS);
+            }
+        });
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.demo.repository;
+
+import com.example.demo.domain.AnswerOfSubmission;
+import com.example.demo.domain.Assignment;
+import com.example.demo.domain.Course;
+import com.example.demo.domain.Question;
+import com.example.demo.domain.Submission;
+import com.example.demo.domain.User;
+import com.example.demo.domain.enumeration.Answer;
+import com.example.demo.domain.enumeration.Role;
+import com.example.demo.domain.enumeration.StatusAssignment;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The detail view of a submission reads the student, the answers and their questions; the entity
+ * graph must load all of them with a single statement whatever the number of answers.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class SubmissionRepositoryTest {
+    private static final int QUESTIONS = 20;
+
+    @Autowired
+    private SubmissionRepository submissionRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Submission submission;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        User teacher = user("teacher@example.com", Role.TEACHER);
+        User student = user("student@example.com", Role.STUDENT);
+
+        Course course = new Course();
+        course.setName("Cấu trúc dữ liệu");
+        course.setCode("CO2003");
+        course.setStatus(Course.CourseStatus.ACTIVE);
+        course.setTeacher(teacher);
+        entityManager.persist(course);
+
+        Assignment assignment = new Assignment();
+        assignment.setTitle("Quiz 1");
+        assignment.setDueDate(LocalDateTime.now().plusDays(7));
+        assignment.setStatus(StatusAssignment.PUBLISHED);
+        assignment.setCourse(course);
+        entityManager.persist(assignment);
+
+        submission = new Submission();
+        submission.setAssignment(assignment);
+        submission.setStudent(student);
+        entityManager.persist(submission);
+
+        for (int i = 0; i < QUESTIONS; i++) {
+            Question question = new Question();
+            question.setQuestion("Câu " + (i + 1));
+            question.setCorrectAnswer(Answer.A);
+            question.setAssignment(assignment);
+            entityManager.persist(question);
+
+            AnswerOfSubmission answer = new AnswerOfSubmission();
+            answer.setQuestion(question);
+            answer.setSubmission(submission);
+            answer.setAnswer(i % 2 == 0 ? Answer.A : Answer.B);
+            answer.setCorrect(i % 2 == 0);
+            entityManager.persist(answer);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void findWithAnswersByIdUsesOneStatement() {
+        Submission found = submissionRepository.findWithAnswersById(submission.getId()).orElseThrow();
+
+        assertDetailLoaded(found);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void findWithAnswersByAssignmentIdAndStudentUserIdUsesOneStatement() {
+        Submission found = submissionRepository.findWithAnswersByAssignmentIdAndStudentUserId(
+                submission.getAssignment().getId(), submission.getStudent().getUserId()).orElseThrow();
+
+        assertDetailLoaded(found);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    // đọc mọi thứ ResponseDetailSubmissionDTO cần, để lazy load (nếu có) được tính vào số câu lệnh
+    private void assertDetailLoaded(Submission found) {
+        assertThat(found.getStudent().getEmail()).isEqualTo("student@example.com");
+        assertThat(found.getAnswerOfSubmissions()).hasSize(QUESTIONS);
+        assertThat(found.getAnswerOfSubmissions())
+                .allSatisfy(answer -> assertThat(answer.getQuestion().getQuestion()).startsWith("Câu "));
+    }
+
+    private User user(String email, Role role) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPassword("{noop}secret");
+        user.setRole(role);
+        user.setName(email);
+        return entityManager.persist(user);
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Concurrent misses of one key share a single S3 GET and get the cached copy without blocking;
+ * a fill slower than the wait bound lets the callers go to S3 themselves, and an object too
+ * large to cache is not fetched again.
+ */
+class DocumentFileCacheTest {
+    private static final String KEY = "documents/report.pdf";
+    private static final String ETAG = "\"v1\"";
+    private static final byte[] CONTENT = "%PDF-1.7 test".getBytes();
+    private static final int CONCURRENT_MISSES = 50;
+
+    @TempDir
+    Path directory;
+
+    private final S3Client s3Client = mock(S3Client.class);
+    private DocumentFileCache cache;
+
+    @AfterEach
+    void tearDown() {
+        cache.shutdown();
+    }
+
+    @Test
+    void concurrentMissesShareOneFill() throws Exception {
+        CountDownLatch s3Answering = new CountDownLatch(1);
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenAnswer(invocation -> {
+            s3Answering.await(10, TimeUnit.SECONDS);
+            return object(CONTENT.length);
+        });
+        cache = newCache(DataSize.ofMegabytes(1), Duration.ofSeconds(10));
+
+        List<CompletableFuture<Optional<DocumentFileCache.CachedFile>>> misses = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_MISSES; i++) {
+            misses.add(cache.get(KEY, ETAG));
+        }
+        // get() trả về ngay cả khi S3 chưa trả lời
+        assertThat(misses).noneMatch(CompletableFuture::isDone);
+        s3Answering.countDown();
+
+        for (CompletableFuture<Optional<DocumentFileCache.CachedFile>> miss : misses) {
+            DocumentFileCache.CachedFile file = miss.get(10, TimeUnit.SECONDS).orElseThrow();
+            assertThat(Files.readAllBytes(file.path())).isEqualTo(CONTENT);
+            assertThat(file.contentType()).isEqualTo("application/pdf");
+        }
+        assertThat(cache.get(KEY, ETAG).get(1, TimeUnit.SECONDS)).isPresent();
+        verify(s3Client, times(1)).getObject(any(GetObjectRequest.class));
+    }
+
+    @Test
+    void slowFillLetsTheCallerStreamFromS3() throws Exception {
+        CountDownLatch s3Answering = new CountDownLatch(1);
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenAnswer(invocation -> {
+            s3Answering.await(10, TimeUnit.SECONDS);
+            return object(CONTENT.length);
+        });
+        cache = newCache(DataSize.ofMegabytes(1), Duration.ofMillis(100));
+
+        assertThat(cache.get(KEY, ETAG).get(5, TimeUnit.SECONDS)).isEmpty();
+        s3Answering.countDown();
+    }
+
+    @Test
+    void tooLargeObjectIsNotFetchedAgain() throws Exception {
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenAnswer(invocation -> object(CONTENT.length));
+        cache = newCache(DataSize.ofBytes(CONTENT.length - 1), Duration.ofSeconds(10));
+
+        assertThat(cache.get(KEY, ETAG).get(5, TimeUnit.SECONDS)).isEmpty();
+        assertThat(cache.get(KEY, ETAG).get(5, TimeUnit.SECONDS)).isEmpty();
+
+        verify(s3Client, times(1)).getObject(any(GetObjectRequest.class));
+    }
+
+    private DocumentFileCache newCache(DataSize maxFileSize, Duration fillWait) throws Exception {
+        DocumentFileCache cache = new DocumentFileCache(s3Client, "test-bucket", true, directory.toString(),
+                DataSize.ofMegabytes(10), maxFileSize, 1, 4, fillWait, 100, Duration.ofHours(1));
+        cache.prepareDirectory();
+        return cache;
+    }
+
+    private static ResponseInputStream<GetObjectResponse> object(long length) {
+        return new ResponseInputStream<>(
+                GetObjectResponse.builder().contentLength(length).contentType("application/pdf").build(),
+                AbortableInputStream.create(new ByteArrayInputStream(CONTENT)));
+    }
+}
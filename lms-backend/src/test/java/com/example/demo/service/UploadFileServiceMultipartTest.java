@@ -0,0 +1,93 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Multipart upload against an in-process S3 stand-in whose second part fails: the upload must be
+ * aborted as soon as the failure is seen, without reading and sending the rest of the file.
+ */
+class UploadFileServiceMultipartTest {
+    private static final int PART_SIZE = 5 * 1024 * 1024;
+    private static final int PARTS = 8;
+    private static final int FAILING_PART = 2;
+
+    private S3Client s3Client;
+    private UploadFileService uploadFileService;
+
+    @BeforeEach
+    void setUp() {
+        s3Client = mock(S3Client.class);
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-1").build());
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class))).thenAnswer(invocation -> {
+            UploadPartRequest request = invocation.getArgument(0);
+            if (request.partNumber() == FAILING_PART) {
+                throw S3Exception.builder().message("part rejected").statusCode(500).build();
+            }
+            // các part thành công chậm hơn, để part lỗi kết thúc trước
+            Thread.sleep(200);
+            return UploadPartResponse.builder().eTag("etag-" + request.partNumber()).build();
+        });
+        when(s3Client.abortMultipartUpload(any(AbortMultipartUploadRequest.class)))
+                .thenReturn(AbortMultipartUploadResponse.builder().build());
+
+        uploadFileService = new UploadFileService(s3Client, mock(S3AsyncClient.class), mock(S3Presigner.class),
+                mock(DocumentFileCache.class));
+        ReflectionTestUtils.setField(uploadFileService, "bucketName", "test-bucket");
+        ReflectionTestUtils.setField(uploadFileService, "multipartThreshold", DataSize.ofBytes(PART_SIZE));
+        ReflectionTestUtils.setField(uploadFileService, "partSize", DataSize.ofBytes(PART_SIZE));
+        ReflectionTestUtils.setField(uploadFileService, "uploadConcurrency", 2);
+        ReflectionTestUtils.setField(uploadFileService, "uploadThreads", 2);
+        uploadFileService.startPartUploadExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        uploadFileService.stopPartUploadExecutor();
+    }
+
+    @Test
+    void failedPartAbortsTheUploadAtOnce() {
+        MockMultipartFile file = new MockMultipartFile("file", "big.bin", "application/octet-stream",
+                new byte[PARTS * PART_SIZE]);
+
+        assertThatThrownBy(() -> uploadFileService.putObject("documents/big.bin", file))
+                .isInstanceOf(IOException.class)
+                .hasCauseInstanceOf(S3Exception.class);
+
+        verify(s3Client, times(1)).abortMultipartUpload(
+                argThat((AbortMultipartUploadRequest request) -> "upload-1".equals(request.uploadId())));
+        verify(s3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+        // part 1 và 2, cùng lắm thêm một part gửi trước khi thấy lỗi; không phải cả 8 part
+        verify(s3Client, atMost(FAILING_PART + 1)).uploadPart(any(UploadPartRequest.class), any(RequestBody.class));
+    }
+}